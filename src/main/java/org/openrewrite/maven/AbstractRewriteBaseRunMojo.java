@@ -51,6 +51,8 @@ import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 
@@ -69,6 +71,8 @@ public abstract class AbstractRewriteBaseRunMojo extends AbstractRewriteMojo {
     @Parameter(property = "rewrite.recipeChangeLogLevel", defaultValue = "WARN")
     protected LogLevel recipeChangeLogLevel;
 
+    private @Nullable IncrementalBuildState incrementalBuildState;
+
     protected void log(LogLevel logLevel, CharSequence content) {
         switch (logLevel) {
             case DEBUG:
@@ -116,45 +120,13 @@ public abstract class AbstractRewriteBaseRunMojo extends AbstractRewriteMojo {
                 return new ResultsContainer(repositoryRoot, emptyList());
             }
 
-            URLClassLoader recipeArtifactCoordinatesClassloader = getRecipeArtifactCoordinatesClassloader();
-            if (recipeArtifactCoordinatesClassloader != null) {
-                merge(getClass().getClassLoader(), recipeArtifactCoordinatesClassloader);
-            }
-            Environment env = environment(recipeArtifactCoordinatesClassloader);
-
-            Recipe recipe = env.activateRecipes(getActiveRecipes());
-            if ("org.openrewrite.Recipe$Noop".equals(recipe.getName())) {
-                getLog().warn("No recipes were activated." +
-                              " Activate a recipe with <activeRecipes><recipe>com.fully.qualified.RecipeClassName</recipe></activeRecipes> in this plugin's <configuration> in your pom.xml," +
-                              " or on the command line with -Drewrite.activeRecipes=com.fully.qualified.RecipeClassName");
+            Environment env = recipeEnvironment();
+            Recipe recipe = activateRecipe(env, ctx);
+            if (recipe == null) {
                 return new ResultsContainer(repositoryRoot, emptyList());
             }
 
-            if (options != null && !options.isEmpty()) {
-                configureRecipeOptions(recipe, options);
-            }
-
-            getLog().info("Validating active recipes...");
-            List<Validated<Object>> validations = new ArrayList<>();
-            recipe.validateAll(ctx, validations);
-            List<Validated.Invalid<Object>> failedValidations = validations.stream().map(Validated::failures)
-                    .flatMap(Collection::stream).collect(toList());
-            if (!failedValidations.isEmpty()) {
-                failedValidations.forEach(failedValidation -> getLog().error(
-                        String.format(
-                                "Recipe validation error in %s for property %s with invalid value %s: %s",
-                                recipe.getName(),
-                                failedValidation.getProperty(),
-                                failedValidation.getInvalidValue(),
-                                failedValidation.getMessage()),
-                        failedValidation.getException()));
-                if (failOnInvalidActiveRecipes) {
-                    throw new MojoExecutionException("Recipe validation errors detected as part of one or more activeRecipe(s). Please check error logs.");
-                }
-                getLog().error("Recipe validation errors detected as part of one or more activeRecipe(s). Execution will continue regardless.");
-            }
-
-            LargeSourceSet sourceSet = loadSourceSet(repositoryRoot, env, ctx);
+            LargeSourceSet sourceSet = loadSourceSet(repositoryRoot, env, recipe, ctx);
 
             List<Result> results = runRecipe(recipe, sourceSet, ctx);
 
@@ -163,7 +135,57 @@ public abstract class AbstractRewriteBaseRunMojo extends AbstractRewriteMojo {
             return new ResultsContainer(repositoryRoot, results);
         } catch (DependencyResolutionRequiredException e) {
             throw new MojoExecutionException("Dependency resolution required", e);
+        } finally {
+            MavenMojoProjectParser.stopBackgroundResolution(ctx);
+            ResolutionMetrics.printSummary(ctx, getLog(), resolutionSummary);
+            ProfiledRocksdbMavenPomCache.release(ctx, allProjectsMarked());
+        }
+    }
+
+    protected Environment recipeEnvironment() throws MojoExecutionException {
+        URLClassLoader recipeArtifactCoordinatesClassloader = getRecipeArtifactCoordinatesClassloader();
+        if (recipeArtifactCoordinatesClassloader != null) {
+            merge(getClass().getClassLoader(), recipeArtifactCoordinatesClassloader);
         }
+        return environment(recipeArtifactCoordinatesClassloader);
+    }
+
+    /**
+     * @return The active recipes, validated and configured, or {@code null} if no recipes are activated.
+     */
+    protected @Nullable Recipe activateRecipe(Environment env, ExecutionContext ctx) throws MojoExecutionException {
+        Recipe recipe = env.activateRecipes(getActiveRecipes());
+        if ("org.openrewrite.Recipe$Noop".equals(recipe.getName())) {
+            getLog().warn("No recipes were activated." +
+                          " Activate a recipe with <activeRecipes><recipe>com.fully.qualified.RecipeClassName</recipe></activeRecipes> in this plugin's <configuration> in your pom.xml," +
+                          " or on the command line with -Drewrite.activeRecipes=com.fully.qualified.RecipeClassName");
+            return null;
+        }
+
+        if (options != null && !options.isEmpty()) {
+            configureRecipeOptions(recipe, options);
+        }
+
+        getLog().info("Validating active recipes...");
+        List<Validated<Object>> validations = new ArrayList<>();
+        recipe.validateAll(ctx, validations);
+        List<Validated.Invalid<Object>> failedValidations = validations.stream().map(Validated::failures)
+                .flatMap(Collection::stream).collect(toList());
+        if (!failedValidations.isEmpty()) {
+            failedValidations.forEach(failedValidation -> getLog().error(
+                    String.format(
+                            "Recipe validation error in %s for property %s with invalid value %s: %s",
+                            recipe.getName(),
+                            failedValidation.getProperty(),
+                            failedValidation.getInvalidValue(),
+                            failedValidation.getMessage()),
+                    failedValidation.getException()));
+            if (failOnInvalidActiveRecipes) {
+                throw new MojoExecutionException("Recipe validation errors detected as part of one or more activeRecipe(s). Please check error logs.");
+            }
+            getLog().error("Recipe validation errors detected as part of one or more activeRecipe(s). Execution will continue regardless.");
+        }
+        return recipe;
     }
 
     private static void configureRecipeOptions(Recipe recipe, Set<String> options) throws MojoExecutionException {
@@ -232,15 +254,70 @@ public abstract class AbstractRewriteBaseRunMojo extends AbstractRewriteMojo {
                 String.format("Unable to convert option: %s value: %s to type: %s", name, optionValue, type));
     }
 
-    protected LargeSourceSet loadSourceSet(Path repositoryRoot, Environment env, ExecutionContext ctx) throws DependencyResolutionRequiredException, MojoExecutionException, MojoFailureException {
+    protected LargeSourceSet loadSourceSet(Path repositoryRoot, Environment env, Recipe recipe, ExecutionContext ctx) throws DependencyResolutionRequiredException, MojoExecutionException, MojoFailureException {
         List<NamedStyles> styles = loadStyles(project, env);
 
         //Parse and collect source files from each project in the maven session.
-        MavenMojoProjectParser projectParser = new MavenMojoProjectParser(getLog(), repositoryRoot, pomCacheEnabled, pomCacheDirectory, runtime, skipMavenParsing, getExclusions(), getPlainTextMasks(), sizeThresholdMb, mavenSession, settingsDecrypter, runPerSubmodule);
+        try (MavenMojoProjectParser projectParser = projectParser(repositoryRoot)) {
+            if (incremental && changedSince == null) {
+                String configuration = IncrementalBuildState.configuration(recipe, options == null ? emptySet() : options, styles);
+                incrementalBuildState = IncrementalBuildState.load(runPerSubmodule ? singletonList(project) : mavenSession.getProjects(), configuration, getLog());
+                Set<Path> changedPaths = incrementalBuildState.changedPaths();
+                if (changedPaths != null) {
+                    getLog().info("Parsing only the " + changedPaths.size() + " files that changed since the last run");
+                }
+                projectParser.changedPaths(changedPaths);
+            }
+
+            Stream<SourceFile> sourceFiles = projectParser.listSourceFiles(project, ctx);
+            List<SourceFile> sourceFileList = sourcesWithAutoDetectedStyles(sourceFiles, styles);
+            return new InMemoryLargeSourceSet(sourceFileList);
+        }
+    }
 
-        Stream<SourceFile> sourceFiles = projectParser.listSourceFiles(project, ctx);
-        List<SourceFile> sourceFileList = sourcesWithAutoDetectedStyles(sourceFiles, styles);
-        return new InMemoryLargeSourceSet(sourceFileList);
+    /**
+     * Record the files the results were computed from, so that the next incremental run only parses those that
+     * changed since. Only to be called once the results are written, never after a dry run.
+     */
+    protected void saveIncrementalBuildState() {
+        if (incrementalBuildState != null) {
+            incrementalBuildState.save();
+        }
+    }
+
+    protected MavenMojoProjectParser projectParser(Path repositoryRoot) throws MojoExecutionException {
+        MavenMojoProjectParser projectParser = newProjectParser(repositoryRoot)
+                .readAheadFiles(readAheadFiles)
+                .parseFailureCache(parseFailureCacheEnabled, reparseKnownFailures)
+                .detectBinaryFiles(detectBinaryFiles)
+                .modules(getIncludeModules(), getExcludeModules())
+                .changedSince(changedSince)
+                .gitIndexDiscovery(gitIndexDiscovery)
+                .pomResolutionThreads(pomResolutionThreads)
+                .resolvePomsInBackground(resolvePomsInBackground)
+                .seedPomCacheFromLocalRepository(seedPomCacheFromLocalRepository)
+                .repositorySystem(resolvePomsWithMaven ? repositorySystem : null)
+                .httpTimeouts(Duration.ofMillis(httpConnectTimeoutMillis), Duration.ofMillis(httpReadTimeoutMillis))
+                .maxHttpRequestsPerHost(maxHttpRequestsPerHost)
+                .httpRetries(httpRetries, Duration.ofMillis(httpRetryBackoffMillis))
+                .negativeResolutionCache(missingArtifactCacheTtlMinutes > 0 ? Duration.ofMinutes(missingArtifactCacheTtlMinutes) : null,
+                        Duration.ofMinutes(unreachableRepositoryCacheTtlMinutes))
+                .pomCacheBounds(pomCacheMaxEntries, pomCacheExpireAfterAccessMinutes > 0 ? Duration.ofMinutes(pomCacheExpireAfterAccessMinutes) : null)
+                .mavenMetadataCache(mavenMetadataCacheEnabled, mavenMetadataCacheTtlMinutes > 0 ? Duration.ofMinutes(mavenMetadataCacheTtlMinutes) : null)
+                .persistGitProvenance(persistGitProvenance);
+        if ("tuned".equals(pomCacheProfile)) {
+            projectParser.pomCacheProfile(pomCacheCompression, pomCacheBlockCacheSizeMb, pomCacheBloomFilterBitsPerKey,
+                    Duration.ofHours(pomCacheSnapshotTtlHours), Duration.ofHours(pomCacheMetadataTtlHours), pomCacheMaxSizeMb);
+        } else if ("mapped".equals(pomCacheProfile)) {
+            projectParser.mappedPomCache(true);
+        } else if (!"default".equals(pomCacheProfile)) {
+            throw new MojoExecutionException("Unknown pomCacheProfile '" + pomCacheProfile + "', expected 'default', 'tuned' or 'mapped'");
+        }
+        return projectParser;
+    }
+
+    protected MavenMojoProjectParser newProjectParser(Path repositoryRoot) {
+        return new MavenMojoProjectParser(getLog(), repositoryRoot, pomCacheEnabled, pomCacheDirectory, runtime, skipMavenParsing, getExclusions(), getPlainTextMasks(), sizeThresholdMb, mavenSession, settingsDecrypter, runPerSubmodule);
     }
 
     protected List<Result> runRecipe(Recipe recipe, LargeSourceSet sourceSet, ExecutionContext ctx) {
@@ -255,7 +332,7 @@ public abstract class AbstractRewriteBaseRunMojo extends AbstractRewriteMojo {
             DataTableExecutionContextView.view(ctx).setDataTableStore(csvDataTableStore);
         }
 
-        RecipeRun recipeRun = recipe.run(sourceSet, ctx);
+        RecipeRun recipeRun = scheduleRun(recipe, sourceSet, ctx);
 
         if (csvDataTableStore != null) {
             csvDataTableStore.close();
@@ -270,7 +347,14 @@ public abstract class AbstractRewriteBaseRunMojo extends AbstractRewriteMojo {
         }).collect(toList());
     }
 
-    private List<SourceFile> sourcesWithAutoDetectedStyles(Stream<SourceFile> sourceFiles, List<NamedStyles> configuredStyles) {
+    /**
+     * Run {@code recipe} over {@code sourceSet}, any of whose source files it may change.
+     */
+    protected RecipeRun scheduleRun(Recipe recipe, LargeSourceSet sourceSet, ExecutionContext ctx) {
+        return recipe.run(sourceSet, ctx);
+    }
+
+    protected List<SourceFile> sourcesWithAutoDetectedStyles(Stream<SourceFile> sourceFiles, List<NamedStyles> configuredStyles) {
         org.openrewrite.java.style.Autodetect.Detector javaDetector = org.openrewrite.java.style.Autodetect.detector();
         org.openrewrite.kotlin.style.Autodetect.Detector kotlinDetector = org.openrewrite.kotlin.style.Autodetect.detector();
         org.openrewrite.xml.style.Autodetect.Detector xmlDetector = org.openrewrite.xml.style.Autodetect.detector();
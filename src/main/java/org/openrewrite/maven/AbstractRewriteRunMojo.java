@@ -77,6 +77,15 @@ public class AbstractRewriteRunMojo extends AbstractRewriteBaseRunMojo {
             }
         }
 
+        applyResults(results, ctx);
+        saveIncrementalBuildState();
+        putState(State.PROCESSED);
+    }
+
+    /**
+     * Log the changes that were made and write them to disk.
+     */
+    protected void applyResults(ResultsContainer results, ExecutionContext ctx) {
         if (results.isNotEmpty()) {
             Duration estimateTimeSaved = Duration.ZERO;
             for (Result result : results.generated) {
@@ -176,7 +185,6 @@ public class AbstractRewriteRunMojo extends AbstractRewriteBaseRunMojo {
                 throw new RuntimeException("Unable to rewrite source files", e);
             }
         }
-        putState(State.PROCESSED);
     }
 
     private static void writeAfter(Path root, Result result, ExecutionContext ctx) {
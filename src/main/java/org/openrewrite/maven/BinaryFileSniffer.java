@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Decides whether a file is binary by looking only at its first few kilobytes: a known magic number
+ * or a NUL byte marks it as binary, a byte order mark marks it as text.
+ */
+final class BinaryFileSniffer {
+    static final int SNIFF_LENGTH = 4096;
+
+    private static final byte[][] MAGIC_NUMBERS = {
+            {(byte) 0x89, 'P', 'N', 'G'},               // PNG
+            {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF},    // JPEG
+            {'G', 'I', 'F', '8'},                       // GIF
+            {'%', 'P', 'D', 'F', '-'},                  // PDF
+            {'P', 'K', 3, 4},                           // zip, jar, war, docx, ...
+            {'P', 'K', 5, 6},                           // empty zip
+            {0x1F, (byte) 0x8B},                        // gzip
+            {(byte) 0xFD, '7', 'z', 'X', 'Z', 0},       // xz
+            {'7', 'z', (byte) 0xBC, (byte) 0xAF},       // 7z
+            {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE}, // class file
+            {0x7F, 'E', 'L', 'F'},                      // ELF
+            {'w', 'O', 'F', 'F'},                       // WOFF
+            {'w', 'O', 'F', '2'},                       // WOFF2
+            {'O', 'T', 'T', 'O'},                       // OpenType
+            {0, 1, 0, 0, 0},                            // TrueType
+    };
+
+    private static final byte[][] TEXT_BYTE_ORDER_MARKS = {
+            {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF},    // UTF-8
+            {(byte) 0xFE, (byte) 0xFF},                 // UTF-16BE
+            {(byte) 0xFF, (byte) 0xFE},                 // UTF-16LE and UTF-32LE
+            {0, 0, (byte) 0xFE, (byte) 0xFF},           // UTF-32BE
+    };
+
+    private BinaryFileSniffer() {
+    }
+
+    static boolean isBinary(Path path) {
+        byte[] head = new byte[SNIFF_LENGTH];
+        int length = 0;
+        try (InputStream is = Files.newInputStream(path)) {
+            int n;
+            while (length < head.length && (n = is.read(head, length, head.length - length)) > 0) {
+                length += n;
+            }
+        } catch (IOException e) {
+            // leave it to the parser to report a file that cannot be read
+            return false;
+        }
+        return isBinary(head, length);
+    }
+
+    static boolean isBinary(byte[] head, int length) {
+        for (byte[] bom : TEXT_BYTE_ORDER_MARKS) {
+            if (startsWith(head, length, bom)) {
+                // UTF-16 and UTF-32 text is full of NUL bytes
+                return false;
+            }
+        }
+        for (byte[] magic : MAGIC_NUMBERS) {
+            if (startsWith(head, length, magic)) {
+                return true;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            if (head[i] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWith(byte[] head, int length, byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (head[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -91,6 +91,216 @@ public abstract class ConfigurableRewriteMojo extends AbstractMojo {
         return getCleanedSet(exclusions);
     }
 
+    /**
+     * {@code groupId:artifactId} globs of the reactor modules to parse, for example {@code com.acme:*-service}.
+     * A glob without a colon matches the artifactId. When empty, all modules are parsed.
+     */
+    @Parameter(property = "rewrite.includeModules", alias = "includeModules")
+    @Nullable
+    private LinkedHashSet<String> includeModules;
+
+    /**
+     * {@code groupId:artifactId} globs of reactor modules not to parse. Their POMs are still used to resolve
+     * the POMs of the modules that are parsed.
+     */
+    @Parameter(property = "rewrite.excludeModules", alias = "excludeModules")
+    @Nullable
+    private LinkedHashSet<String> excludeModules;
+
+    protected Set<String> getIncludeModules() {
+        return getCleanedSet(includeModules);
+    }
+
+    protected Set<String> getExcludeModules() {
+        return getCleanedSet(excludeModules);
+    }
+
+    /**
+     * A git ref, such as {@code origin/main}. When set, only the files that differ between this ref and the
+     * working tree are parsed, and recipes only run on those.
+     */
+    @Parameter(property = "rewrite.changedSince", alias = "changedSince")
+    @Nullable
+    protected String changedSince;
+
+    /**
+     * Only parse the sources, resources and POMs that changed since the last run, as told by the state
+     * maven-compiler-plugin keeps in {@code target/maven-status} and a snapshot kept in {@code target/rewrite}.
+     * The snapshot is only taken by {@code run}, once its results are written, never by {@code dryRun}.
+     * All files are parsed when that state is missing, or when the active recipes, their options or the
+     * active styles changed since. Has no effect when {@code changedSince} is set.
+     */
+    @Parameter(property = "rewrite.incremental", alias = "incremental", defaultValue = "false")
+    protected boolean incremental;
+
+    /**
+     * List source files with the help of the git index rather than walking the source directories. Directories
+     * are still read to find untracked files, but only the files the index does not track are examined.
+     */
+    @Parameter(property = "rewrite.gitIndexDiscovery", alias = "gitIndexDiscovery", defaultValue = "false")
+    protected boolean gitIndexDiscovery;
+
+    /**
+     * Resolve the reactor's POMs on this many threads, parents and imported BOMs first, before parsing them.
+     * Speeds up the first resolution of large reactors with many dependencies to download.
+     */
+    @Parameter(property = "rewrite.pomResolutionThreads", alias = "pomResolutionThreads", defaultValue = "1")
+    protected int pomResolutionThreads;
+
+    /**
+     * Resolve the POMs on a background thread while the sources are parsed, rather than before. The POMs are
+     * then listed after the sources.
+     */
+    @Parameter(property = "rewrite.resolvePomsInBackground", alias = "resolvePomsInBackground", defaultValue = "false")
+    protected boolean resolvePomsInBackground;
+
+    /**
+     * Seed the POM cache with the POMs of the dependencies Maven already resolved into the local repository,
+     * so that rewrite does not resolve them again through its own downloader.
+     */
+    @Parameter(property = "rewrite.seedPomCacheFromLocalRepository", alias = "seedPomCacheFromLocalRepository", defaultValue = "false")
+    protected boolean seedPomCacheFromLocalRepository;
+
+    /**
+     * Download POMs through Maven's repository system, with its local repository, mirrors, authentication and
+     * transport, rather than over rewrite's own HTTP connections, which remain the fallback.
+     */
+    @Parameter(property = "rewrite.resolvePomsWithMaven", alias = "resolvePomsWithMaven", defaultValue = "false")
+    protected boolean resolvePomsWithMaven;
+
+    /**
+     * Connect timeout, in milliseconds, of the HTTP connections POMs are downloaded over.
+     */
+    @Parameter(property = "rewrite.httpConnectTimeoutMillis", alias = "httpConnectTimeoutMillis", defaultValue = "1000")
+    protected int httpConnectTimeoutMillis;
+
+    /**
+     * Read timeout, in milliseconds, of the HTTP connections POMs are downloaded over.
+     */
+    @Parameter(property = "rewrite.httpReadTimeoutMillis", alias = "httpReadTimeoutMillis", defaultValue = "10000")
+    protected int httpReadTimeoutMillis;
+
+    /**
+     * At most this many POM downloads in flight to any one repository host, over kept-alive connections.
+     * {@code 0} leaves them unbounded.
+     */
+    @Parameter(property = "rewrite.maxHttpRequestsPerHost", alias = "maxHttpRequestsPerHost", defaultValue = "0")
+    protected int maxHttpRequestsPerHost;
+
+    /**
+     * Retry POM downloads that fail with an I/O error, a 429 or a 502, 503 or 504 this many times.
+     */
+    @Parameter(property = "rewrite.httpRetries", alias = "httpRetries", defaultValue = "0")
+    protected int httpRetries;
+
+    /**
+     * Backoff, in milliseconds, before the first retry of a POM download. Doubles with every further retry.
+     */
+    @Parameter(property = "rewrite.httpRetryBackoffMillis", alias = "httpRetryBackoffMillis", defaultValue = "250")
+    protected int httpRetryBackoffMillis;
+
+    /**
+     * Remember artifacts repositories answered 404 for this many minutes, across runs, and skip downloading them
+     * again meanwhile. {@code 0} disables the negative cache, kept next to the POM cache.
+     */
+    @Parameter(property = "rewrite.missingArtifactCacheTtlMinutes", alias = "missingArtifactCacheTtlMinutes", defaultValue = "0")
+    protected int missingArtifactCacheTtlMinutes;
+
+    /**
+     * With the negative cache enabled, skip repository hosts that could not be reached for this many minutes.
+     */
+    @Parameter(property = "rewrite.unreachableRepositoryCacheTtlMinutes", alias = "unreachableRepositoryCacheTtlMinutes", defaultValue = "10")
+    protected int unreachableRepositoryCacheTtlMinutes;
+
+    /**
+     * Bound the in-memory layer of the POM cache to this many POMs, and as many metadata and resolved POMs.
+     * The cache outlives a build in long-lived JVMs such as mvnd daemons, and is shared by all builds in the JVM.
+     */
+    @Parameter(property = "rewrite.pomCacheMaxEntries", alias = "pomCacheMaxEntries", defaultValue = "100000")
+    protected long pomCacheMaxEntries;
+
+    /**
+     * Evict entries of the in-memory POM cache that were not accessed for this many minutes. {@code 0} never does.
+     */
+    @Parameter(property = "rewrite.pomCacheExpireAfterAccessMinutes", alias = "pomCacheExpireAfterAccessMinutes", defaultValue = "0")
+    protected int pomCacheExpireAfterAccessMinutes;
+
+    /**
+     * {@code default} keeps the POM cache in rewrite's RocksDB database, open for the life of the JVM. {@code tuned}
+     * keeps it in a RocksDB database tuned with the {@code pomCache*} options below, under {@code .rewrite-pom-cache},
+     * opened for each execution and closed at its end. {@code mapped} keeps it in a memory-mapped log written in pure
+     * Java, under {@code .rewrite-cache-log}, which is also what {@code default} falls back to when RocksDB's native
+     * library is not available.
+     */
+    @Parameter(property = "rewrite.pomCacheProfile", alias = "pomCacheProfile", defaultValue = "default")
+    protected String pomCacheProfile;
+
+    /**
+     * Compression codec of the tuned POM cache: {@code none}, {@code snappy}, {@code zlib}, {@code lz4},
+     * {@code lz4hc} or {@code zstd}.
+     */
+    @Parameter(property = "rewrite.pomCacheCompression", alias = "pomCacheCompression", defaultValue = "lz4")
+    protected String pomCacheCompression;
+
+    /**
+     * Size of the block cache of the tuned POM cache, in megabytes.
+     */
+    @Parameter(property = "rewrite.pomCacheBlockCacheSizeMb", alias = "pomCacheBlockCacheSizeMb", defaultValue = "32")
+    protected long pomCacheBlockCacheSizeMb;
+
+    /**
+     * Bits per key of the bloom filters of the tuned POM cache, which spare lookups of POMs it does not have.
+     */
+    @Parameter(property = "rewrite.pomCacheBloomFilterBitsPerKey", alias = "pomCacheBloomFilterBitsPerKey", defaultValue = "10")
+    protected int pomCacheBloomFilterBitsPerKey;
+
+    /**
+     * Hours after which the tuned POM cache forgets snapshot POMs.
+     */
+    @Parameter(property = "rewrite.pomCacheSnapshotTtlHours", alias = "pomCacheSnapshotTtlHours", defaultValue = "24")
+    protected int pomCacheSnapshotTtlHours;
+
+    /**
+     * Hours after which the tuned POM cache forgets Maven metadata, which lists the versions of an artifact.
+     */
+    @Parameter(property = "rewrite.pomCacheMetadataTtlHours", alias = "pomCacheMetadataTtlHours", defaultValue = "24")
+    protected int pomCacheMetadataTtlHours;
+
+    /**
+     * Size in megabytes over which the tuned POM cache is trimmed and compacted in the background when opened.
+     */
+    @Parameter(property = "rewrite.pomCacheMaxSizeMb", alias = "pomCacheMaxSizeMb", defaultValue = "512")
+    protected long pomCacheMaxSizeMb;
+
+    /**
+     * Whether to download each {@code maven-metadata.xml} once per build, rather than every time a recipe resolving
+     * versions asks for it.
+     */
+    @Parameter(property = "rewrite.mavenMetadataCacheEnabled", alias = "mavenMetadataCacheEnabled", defaultValue = "true")
+    protected boolean mavenMetadataCacheEnabled;
+
+    /**
+     * Minutes for which downloaded {@code maven-metadata.xml} files are also kept next to the POM cache and reused by
+     * later builds. {@code 0} keeps them for the current build only.
+     */
+    @Parameter(property = "rewrite.mavenMetadataCacheTtlMinutes", alias = "mavenMetadataCacheTtlMinutes", defaultValue = "0")
+    protected int mavenMetadataCacheTtlMinutes;
+
+    /**
+     * Whether to log, at the end of the run, a summary of POM resolution: the downloads from each repository, with
+     * their size and latency, and the hit rates of the POM cache's layers. Otherwise, it is only logged at debug
+     * level. The same metrics are published to Micrometer's global registry regardless.
+     */
+    @Parameter(property = "rewrite.resolutionSummary", alias = "resolutionSummary", defaultValue = "false")
+    protected boolean resolutionSummary;
+
+    /**
+     * Whether to persist the git provenance of the repository next to the POM cache, by the commit {@code HEAD} points
+     * to, so that later builds of the same commit skip walking the repository's history.
+     */
+    @Parameter(property = "rewrite.persistGitProvenance", alias = "persistGitProvenance", defaultValue = "false")
+    protected boolean persistGitProvenance;
+
     /**
      * Override default plain text masks. If this is specified,
      * {@code rewrite.additionalPlainTextMasks} will have no effect.
@@ -160,6 +370,33 @@ public abstract class ConfigurableRewriteMojo extends AbstractMojo {
     @Parameter(property = "sizeThresholdMb", defaultValue = "10")
     protected int sizeThresholdMb;
 
+    /**
+     * Number of source files to read into memory ahead of the parser, so that file system latency
+     * is hidden behind parsing. Useful on network file systems. Zero, the default, disables read-ahead.
+     */
+    @Parameter(property = "rewrite.readAheadFiles", alias = "readAheadFiles", defaultValue = "0")
+    protected int readAheadFiles;
+
+    /**
+     * Remember source files that fail to parse, keyed by content hash and parser version, and skip
+     * parsing them on later runs. The record is kept next to the POM cache.
+     */
+    @Parameter(property = "rewrite.parseFailureCacheEnabled", alias = "parseFailureCacheEnabled", defaultValue = "false")
+    protected boolean parseFailureCacheEnabled;
+
+    /**
+     * Parse files again even if they are recorded as known parse failures.
+     */
+    @Parameter(property = "rewrite.reparseKnownFailures", alias = "reparseKnownFailures", defaultValue = "false")
+    protected boolean reparseKnownFailures;
+
+    /**
+     * Sniff resources for magic numbers and NUL bytes before parsing them, and keep binary files as
+     * opaque source files instead of reading them in full as text.
+     */
+    @Parameter(property = "rewrite.detectBinaryFiles", alias = "detectBinaryFiles", defaultValue = "false")
+    protected boolean detectBinaryFiles;
+
     /**
      * Whether to throw an exception if an activeRecipe fails configuration validation.
      * This may happen if the activeRecipe is improperly configured, or any downstream recipes are improperly configured.
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.jgit.dircache.DirCache;
+import org.openrewrite.jgit.dircache.DirCacheEntry;
+import org.openrewrite.jgit.lib.FileMode;
+import org.openrewrite.jgit.lib.Repository;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Lists files with the help of the git index instead of walking the file system.
+ * <p>
+ * Every directory below the listed root is still read, so that untracked files are found as well, but only
+ * the entries the index does not know need a {@code stat} to tell files from directories. Tracked paths are
+ * taken to still be what the index says they are, files or directories, which saves the {@code stat} per
+ * file a walk of the file system costs. Directories the index knows nothing about (untracked directories
+ * and submodules) are read in the same way, with every entry being untracked.
+ */
+class GitIndexInventory {
+    private final Path workTree;
+    private final Map<Path, Set<Path>> trackedFiles = new HashMap<>();
+    private final Map<Path, Set<Path>> subdirectories = new HashMap<>();
+
+    GitIndexInventory(Repository repository, DirCache dirCache) {
+        this.workTree = repository.getWorkTree().toPath().toAbsolutePath().normalize();
+        for (int i = 0; i < dirCache.getEntryCount(); i++) {
+            DirCacheEntry entry = dirCache.getEntry(i);
+            if (i > 0 && entry.getPathString().equals(dirCache.getEntry(i - 1).getPathString())) {
+                // the stages of a merge conflict name the same path
+                continue;
+            }
+            Path path = workTree.resolve(entry.getPathString()).normalize();
+            Path parent = path.getParent();
+            if (FileMode.GITLINK.equals(entry.getFileMode())) {
+                // a submodule is a directory whose files are not in this index
+                subdirectories.computeIfAbsent(parent, k -> new HashSet<>()).add(path);
+            } else {
+                trackedFiles.computeIfAbsent(parent, k -> new HashSet<>()).add(path);
+            }
+            for (Path dir = parent; !dir.equals(workTree) && dir.startsWith(workTree); dir = dir.getParent()) {
+                trackedFiles.computeIfAbsent(dir, k -> new HashSet<>());
+                if (!subdirectories.computeIfAbsent(dir.getParent(), k -> new HashSet<>()).add(dir)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The files below {@code root} whose name ends with {@code extension}, tracked or not, or
+     * {@code null} if the index does not cover {@code root} and it has to be walked instead.
+     */
+    @Nullable
+    List<Path> listFiles(Path root, String extension) throws IOException {
+        Path start = root.toAbsolutePath().normalize();
+        if (!trackedFiles.containsKey(start)) {
+            return null;
+        }
+        List<Path> files = new ArrayList<>();
+        Deque<Path> directories = new ArrayDeque<>();
+        directories.push(start);
+        while (!directories.isEmpty()) {
+            Path dir = directories.pop();
+            Set<Path> tracked = trackedFiles.getOrDefault(dir, Collections.emptySet());
+            Set<Path> trackedDirectories = subdirectories.getOrDefault(dir, Collections.emptySet());
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    if (tracked.contains(entry)) {
+                        if (entry.toString().endsWith(extension)) {
+                            files.add(entry);
+                        }
+                    } else if (trackedDirectories.contains(entry) || Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                        directories.push(entry);
+                    } else if (entry.toString().endsWith(extension)) {
+                        files.add(entry);
+                    }
+                }
+            } catch (NoSuchFileException | NotDirectoryException e) {
+                // deleted since, or no longer a directory
+            }
+        }
+        return files;
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.Recipe;
+import org.openrewrite.style.NamedStyles;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Determines which files of a set of projects changed since the last run. The files considered are the
+ * sources that maven-compiler-plugin lists in the {@code inputFiles.lst} files below
+ * {@code target/maven-status/maven-compiler-plugin}, the project's resources and its POM. They are compared
+ * against a snapshot of their modification times and sizes that is kept in {@code target/rewrite}, together
+ * with the configuration of the run that wrote it: the active recipes, their options and the active styles.
+ * <p>
+ * When the snapshot of any project is missing or was taken with another configuration, or a project with
+ * sources has no compiler state, all files are considered changed.
+ */
+class IncrementalBuildState {
+    static final String SNAPSHOT_FILE = "incremental-snapshot.tsv";
+
+    private static final String CONFIGURATION = "#configuration";
+
+    private final Log logger;
+    private final String configuration;
+    private final Map<MavenProject, Map<Path, String>> stamps;
+    private final @Nullable Set<Path> changedPaths;
+
+    private IncrementalBuildState(Log logger, String configuration, Map<MavenProject, Map<Path, String>> stamps, @Nullable Set<Path> changedPaths) {
+        this.logger = logger;
+        this.configuration = configuration;
+        this.stamps = stamps;
+        this.changedPaths = changedPaths;
+    }
+
+    /**
+     * @param configuration A digest of what the run applies to the files, see {@link #configuration(Recipe, Collection, List)}.
+     */
+    static IncrementalBuildState load(Collection<MavenProject> projects, String configuration, Log logger) {
+        Map<MavenProject, Map<Path, String>> stamps = new LinkedHashMap<>();
+        Set<Path> changed = new HashSet<>();
+        boolean complete = true;
+        boolean reconfigured = false;
+        for (MavenProject project : projects) {
+            List<Path> compilerInputs = compilerInputs(project);
+            if (compilerInputs == null) {
+                logger.info("Project [" + project.getName() + "] has no maven-compiler-plugin state, parsing all files");
+                complete = false;
+                compilerInputs = Collections.emptyList();
+            }
+            Map<Path, String> current = new LinkedHashMap<>();
+            stamp(project.getFile().toPath(), current);
+            compilerInputs.forEach(input -> stamp(input, current));
+            for (Resource resource : project.getResources()) {
+                stampAll(project.getBasedir().toPath().resolve(resource.getDirectory()), current);
+            }
+            for (Resource resource : project.getTestResources()) {
+                stampAll(project.getBasedir().toPath().resolve(resource.getDirectory()), current);
+            }
+            stamps.put(project, current);
+
+            Snapshot previous = readSnapshot(snapshotFile(project));
+            if (previous == null) {
+                complete = false;
+                continue;
+            }
+            if (!configuration.equals(previous.configuration)) {
+                complete = false;
+                reconfigured = true;
+                continue;
+            }
+            for (Map.Entry<Path, String> stamp : current.entrySet()) {
+                if (!stamp.getValue().equals(previous.stamps.get(stamp.getKey()))) {
+                    changed.add(stamp.getKey());
+                }
+            }
+        }
+        if (reconfigured) {
+            logger.info("The active recipes, their options or the active styles changed since the last run, parsing all files");
+        }
+        return new IncrementalBuildState(logger, configuration, stamps, complete ? changed : null);
+    }
+
+    /**
+     * A digest of the activated {@code recipe}, whose descriptor covers its options and those of the recipes it is
+     * composed of, the options set on the command line and the active {@code styles}.
+     */
+    static String configuration(Recipe recipe, Collection<String> options, List<NamedStyles> styles) {
+        MessageDigest digest = Sha256.newDigest();
+        List<String> parts = new ArrayList<>();
+        parts.add(recipe.getDescriptor().toString());
+        parts.addAll(options);
+        for (NamedStyles style : styles) {
+            // not the styles themselves, which carry an id that differs between runs
+            parts.add(style.getName());
+            parts.add(String.valueOf(style.getStyles()));
+        }
+        for (String part : parts) {
+            digest.update(part.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return Sha256.hex(digest.digest());
+    }
+
+    /**
+     * @return The files that changed since the last run, or {@code null} if that can not be determined.
+     */
+    @Nullable
+    Set<Path> changedPaths() {
+        return changedPaths;
+    }
+
+    /**
+     * Record the state the changed paths were computed against, to compare the next run with. Only to be called
+     * once the results of the run are written, as the next run only parses the files changed since.
+     */
+    void save() {
+        for (Map.Entry<MavenProject, Map<Path, String>> projectStamps : stamps.entrySet()) {
+            Path snapshotFile = snapshotFile(projectStamps.getKey());
+            List<String> lines = new ArrayList<>();
+            lines.add(CONFIGURATION + "\t" + configuration);
+            projectStamps.getValue().entrySet().stream()
+                    .map(stamp -> stamp.getKey() + "\t" + stamp.getValue())
+                    .forEach(lines::add);
+            try {
+                Files.createDirectories(snapshotFile.getParent());
+                Files.write(snapshotFile, lines, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                logger.warn("Unable to write " + snapshotFile + ", the next run will parse all files", e);
+            }
+        }
+    }
+
+    private static @Nullable List<Path> compilerInputs(MavenProject project) {
+        Path status = Paths.get(project.getBuild().getDirectory(), "maven-status", "maven-compiler-plugin");
+        List<Path> inputFileLists;
+        if (Files.isDirectory(status)) {
+            try (Stream<Path> files = Files.walk(status, 3)) {
+                inputFileLists = files.filter(file -> file.getFileName().toString().equals("inputFiles.lst")).collect(toList());
+            } catch (IOException e) {
+                return null;
+            }
+        } else {
+            inputFileLists = Collections.emptyList();
+        }
+        if (inputFileLists.isEmpty()) {
+            // a project without sources to compile has no compiler state, and needs none
+            return hasSources(project) ? null : Collections.emptyList();
+        }
+        List<Path> inputs = new ArrayList<>();
+        for (Path inputFileList : inputFileLists) {
+            try {
+                for (String line : Files.readAllLines(inputFileList, StandardCharsets.UTF_8)) {
+                    if (!line.trim().isEmpty()) {
+                        inputs.add(Paths.get(line.trim()).toAbsolutePath().normalize());
+                    }
+                }
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return inputs;
+    }
+
+    private static boolean hasSources(MavenProject project) {
+        List<String> roots = new ArrayList<>(project.getCompileSourceRoots());
+        roots.addAll(project.getTestCompileSourceRoots());
+        for (String root : roots) {
+            Path path = project.getBasedir().toPath().resolve(root);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.walk(path)) {
+                    if (files.anyMatch(Files::isRegularFile)) {
+                        return true;
+                    }
+                } catch (IOException | UncheckedIOException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void stampAll(Path directory, Map<Path, String> stamps) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(Files::isRegularFile).forEach(file -> stamp(file, stamps));
+        } catch (IOException | UncheckedIOException e) {
+            // files that can not be listed are not tracked, and so not parsed in an incremental run
+        }
+    }
+
+    private static void stamp(Path file, Map<Path, String> stamps) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            stamps.put(file.toAbsolutePath().normalize(), attributes.lastModifiedTime().toMillis() + ":" + attributes.size());
+        } catch (IOException e) {
+            // deleted since it was listed
+        }
+    }
+
+    private static @Nullable Snapshot readSnapshot(Path snapshotFile) {
+        if (!Files.exists(snapshotFile)) {
+            return null;
+        }
+        Snapshot snapshot = new Snapshot();
+        try {
+            for (String line : Files.readAllLines(snapshotFile, StandardCharsets.UTF_8)) {
+                int tab = line.lastIndexOf('\t');
+                if (tab <= 0) {
+                    continue;
+                }
+                if (line.startsWith(CONFIGURATION + '\t')) {
+                    snapshot.configuration = line.substring(tab + 1);
+                } else {
+                    snapshot.stamps.put(Paths.get(line.substring(0, tab)), line.substring(tab + 1));
+                }
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    private static Path snapshotFile(MavenProject project) {
+        return Paths.get(project.getBuild().getDirectory(), "rewrite", SNAPSHOT_FILE);
+    }
+
+    private static class Snapshot {
+        @Nullable
+        String configuration;
+
+        final Map<Path, String> stamps = new HashMap<>();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.project.MavenProject;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.maven.cache.MavenPomCache;
+import org.openrewrite.maven.internal.RawPom;
+import org.openrewrite.maven.tree.MavenRepository;
+import org.openrewrite.maven.tree.ResolvedGroupArtifactVersion;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Puts the POMs of the artifacts Maven already resolved for a project, and of their parents and imported BOMs,
+ * into the POM cache under the local repository, where rewrite's downloader looks for them first. Only release
+ * versions are seeded, snapshots are left to the downloader to pick the right timestamped version.
+ */
+class LocalRepositoryPomSeeder {
+    private final MavenRepository localRepository;
+    private final Path localRepositoryPath;
+    private final MavenPomCache pomCache;
+    private final Set<ResolvedGroupArtifactVersion> visited = new HashSet<>();
+    private int seeded;
+
+    private LocalRepositoryPomSeeder(MavenRepository localRepository, Path localRepositoryPath, MavenPomCache pomCache) {
+        this.localRepository = localRepository;
+        this.localRepositoryPath = localRepositoryPath;
+        this.pomCache = pomCache;
+    }
+
+    /**
+     * @return A seeder, or {@code null} if rewrite's local repository is not on the file system.
+     */
+    static @Nullable LocalRepositoryPomSeeder create(MavenExecutionContextView ctx) {
+        MavenRepository localRepository = ctx.getLocalRepository();
+        URI uri = URI.create(localRepository.getUri());
+        if (!"file".equals(uri.getScheme())) {
+            return null;
+        }
+        return new LocalRepositoryPomSeeder(localRepository, Paths.get(uri), ctx.getPomCache());
+    }
+
+    void seed(MavenProject project) {
+        for (Artifact artifact : project.getArtifacts()) {
+            if (!artifact.isSnapshot()) {
+                seed(artifact.getGroupId(), artifact.getArtifactId(), artifact.getBaseVersion());
+            }
+        }
+    }
+
+    /**
+     * @return The number of POMs put into the cache so far.
+     */
+    int getSeeded() {
+        return seeded;
+    }
+
+    private void seed(@Nullable String groupId, @Nullable String artifactId, @Nullable String version) {
+        if (groupId == null || artifactId == null || version == null ||
+            version.contains("${") || version.endsWith("-SNAPSHOT")) {
+            return;
+        }
+        ResolvedGroupArtifactVersion gav = new ResolvedGroupArtifactVersion(localRepository.getUri(), groupId, artifactId, version, version);
+        if (!visited.add(gav) || isCached(gav)) {
+            return;
+        }
+        Path pomFile = localRepositoryPath.resolve(groupId.replace('.', '/')).resolve(artifactId).resolve(version)
+                .resolve(artifactId + '-' + version + ".pom");
+        if (!Files.isRegularFile(pomFile)) {
+            return;
+        }
+        RawPom rawPom;
+        try (InputStream is = Files.newInputStream(pomFile)) {
+            rawPom = RawPom.parse(is, null);
+        } catch (IOException | UncheckedIOException e) {
+            // leave it to the downloader to report
+            return;
+        }
+        pomCache.putPom(gav, rawPom.toPom(null, localRepository).withGav(gav));
+        seeded++;
+
+        if (rawPom.getParent() != null) {
+            seed(rawPom.getParent().getGroupId(), rawPom.getParent().getArtifactId(), rawPom.getParent().getVersion());
+        }
+        if (rawPom.getDependencyManagement() != null && rawPom.getDependencyManagement().getDependencies() != null) {
+            for (RawPom.Dependency dependency : rawPom.getDependencyManagement().getDependencies().getDependencies()) {
+                if ("import".equals(dependency.getScope())) {
+                    seed(dependency.getGroupId(), dependency.getArtifactId(), dependency.getVersion());
+                }
+            }
+        }
+    }
+
+    private boolean isCached(ResolvedGroupArtifactVersion gav) {
+        try {
+            return pomCache.getPom(gav) != null;
+        } catch (MavenDownloadingException e) {
+            return true;
+        }
+    }
+}
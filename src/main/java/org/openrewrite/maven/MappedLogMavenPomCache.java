@@ -0,0 +1,339 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.apache.maven.plugin.logging.Log;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.maven.cache.MavenPomCache;
+import org.openrewrite.maven.tree.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * A persistent POM cache in pure Java, for where RocksDB's native library is not available. POMs are appended to a
+ * log, which is memory-mapped for reading, and indexed in memory by their coordinates.
+ * <p>
+ * Every record carries a checksum, so a log torn by a crash is truncated after its last intact record when opened.
+ * When most of the log is made of superseded records, it is compacted on opening into a new file that then replaces
+ * it atomically, so that a crash during compaction leaves the old log in place. The log is locked while open, and
+ * a second process fails to open it rather than corrupting it.
+ * <p>
+ * Like rewrite's RocksDB cache, only POMs are persisted; metadata, resolved POMs and repositories are left to the
+ * in-memory cache in front of it. A POM that cannot be written, on a full disk for example, is logged and left out
+ * rather than failing its resolution.
+ */
+class MappedLogMavenPomCache implements MavenPomCache, AutoCloseable {
+    private static final int MAGIC = 0x52575043;
+    private static final int HEADER_SIZE = 8;
+    private static final long MIN_COMPACTION_SIZE = 1 << 20;
+
+    private final Path log;
+    private final @Nullable Log logger;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final Map<String, Long> index = new ConcurrentHashMap<>();
+    private volatile FileChannel channel;
+    private volatile MappedByteBuffer mapped;
+    private long end;
+
+    MappedLogMavenPomCache(Path directory) throws IOException {
+        this(directory, null);
+    }
+
+    /**
+     * @param logger Where failures to write a POM are logged at debug level, if anywhere.
+     */
+    MappedLogMavenPomCache(Path directory, @Nullable Log logger) throws IOException {
+        this.logger = logger;
+        Files.createDirectories(directory);
+        log = directory.resolve("poms.log");
+        lockChannel = FileChannel.open(directory.resolve("poms.lock"), CREATE, WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // held by another cache in this JVM
+            lock = null;
+        } catch (IOException e) {
+            lockChannel.close();
+            throw e;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("The POM cache at " + directory + " is in use by another process or cache");
+        }
+        this.lock = lock;
+        try {
+            Files.deleteIfExists(compacted());
+            channel = FileChannel.open(log, CREATE, READ, WRITE);
+            long live = load();
+            if (end > MIN_COMPACTION_SIZE && live < end / 2) {
+                compact();
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(end, Integer.MAX_VALUE));
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public @Nullable ResolvedPom getResolvedDependencyPom(ResolvedGroupArtifactVersion dependency) {
+        return null;
+    }
+
+    @Override
+    public void putResolvedDependencyPom(ResolvedGroupArtifactVersion dependency, ResolvedPom resolved) {
+    }
+
+    @Override
+    public @Nullable Optional<MavenMetadata> getMavenMetadata(URI repo, GroupArtifactVersion gav) {
+        return null;
+    }
+
+    @Override
+    public void putMavenMetadata(URI repo, GroupArtifactVersion gav, MavenMetadata metadata) {
+    }
+
+    @Override
+    public @Nullable Optional<Pom> getPom(ResolvedGroupArtifactVersion gav) {
+        Long offset = index.get(key(gav));
+        if (offset == null) {
+            return null;
+        }
+        try {
+            ByteBuffer header = read(offset, 8);
+            int keyLength = header.getInt();
+            int valueLength = header.getInt();
+            if (valueLength < 0) {
+                return Optional.empty();
+            }
+            ByteBuffer value = read(offset + 8 + keyLength, valueLength);
+            byte[] bytes = new byte[valueLength];
+            value.get(bytes);
+            return Optional.of(PomCacheMapper.MAPPER.readValue(bytes, Pom.class));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void putPom(ResolvedGroupArtifactVersion gav, @Nullable Pom pom) {
+        try {
+            putEntry(key(gav), pom == null ? null : PomCacheMapper.MAPPER.writeValueAsBytes(pom));
+        } catch (IOException e) {
+            if (logger != null) {
+                logger.debug("Unable to write " + key(gav) + " to the POM cache", e);
+            }
+        }
+    }
+
+    @Override
+    public @Nullable Optional<MavenRepository> getNormalizedRepository(MavenRepository repository) {
+        return null;
+    }
+
+    @Override
+    public void putNormalizedRepository(MavenRepository repository, MavenRepository normalized) {
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            lock.release();
+            lockChannel.close();
+        }
+    }
+
+    /**
+     * Visit the serialized value of every entry, {@code null} for POMs remembered as missing.
+     */
+    void forEachEntry(BiConsumer<String, byte[]> action) throws IOException {
+        for (Map.Entry<String, Long> entry : index.entrySet()) {
+            ByteBuffer header = read(entry.getValue(), 8);
+            int keyLength = header.getInt();
+            int valueLength = header.getInt();
+            byte[] value = null;
+            if (valueLength >= 0) {
+                value = new byte[valueLength];
+                read(entry.getValue() + 8 + keyLength, valueLength).get(value);
+            }
+            action.accept(entry.getKey(), value);
+        }
+    }
+
+    /**
+     * Append an entry whose value is already serialized, {@code null} to remember a POM as missing.
+     */
+    synchronized void putEntry(String key, @Nullable byte[] value) throws IOException {
+        byte[] keyBytes = key.getBytes(UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(8 + keyBytes.length + (value == null ? 0 : value.length) + 4);
+        record.putInt(keyBytes.length).putInt(value == null ? -1 : value.length).put(keyBytes);
+        if (value != null) {
+            record.put(value);
+        }
+        record.putInt(checksum(record.array(), record.position()));
+        record.flip();
+        write(record, end);
+        index.put(key, end);
+        end += record.capacity();
+    }
+
+    /**
+     * Index the intact records of the log, truncating it after the last one, or starting it over if it was
+     * written for another version of rewrite's model.
+     *
+     * @return The size of the records that are not superseded by later ones.
+     */
+    private long load() throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (size < HEADER_SIZE || channel.read(header, 0) < HEADER_SIZE ||
+            header.getInt(0) != MAGIC || header.getInt(4) != Pom.getModelVersion()) {
+            channel.truncate(0);
+            header.clear();
+            header.putInt(MAGIC).putInt(Pom.getModelVersion()).flip();
+            write(header, 0);
+            end = HEADER_SIZE;
+            return HEADER_SIZE;
+        }
+
+        Map<String, Long> recordSizes = new LinkedHashMap<>();
+        long position = HEADER_SIZE;
+        while (position + 12 <= size) {
+            ByteBuffer lengths = read(position, 8);
+            int keyLength = lengths.getInt();
+            int valueLength = lengths.getInt();
+            long recordSize = 8L + keyLength + Math.max(valueLength, 0) + 4;
+            if (keyLength <= 0 || valueLength < -1 || position + recordSize > size) {
+                break;
+            }
+            ByteBuffer record = read(position, (int) recordSize);
+            byte[] bytes = new byte[(int) recordSize];
+            record.get(bytes);
+            int expected = ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt();
+            if (checksum(bytes, bytes.length - 4) != expected) {
+                break;
+            }
+            String key = new String(bytes, 8, keyLength, UTF_8);
+            index.put(key, position);
+            recordSizes.put(key, recordSize);
+            position += recordSize;
+        }
+        if (position < size) {
+            channel.truncate(position);
+        }
+        end = position;
+
+        long live = HEADER_SIZE;
+        for (Long recordSize : recordSizes.values()) {
+            live += recordSize;
+        }
+        return live;
+    }
+
+    /**
+     * Copy the records the index points to into a new log, and replace the current log with it.
+     */
+    private void compact() throws IOException {
+        Path compacted = compacted();
+        Map<String, Long> compactedIndex = new LinkedHashMap<>();
+        long position;
+        try (FileChannel out = FileChannel.open(compacted, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(Pom.getModelVersion());
+            header.flip();
+            position = out.write(header);
+            for (Map.Entry<String, Long> entry : index.entrySet()) {
+                ByteBuffer lengths = read(entry.getValue(), 8);
+                int keyLength = lengths.getInt();
+                int valueLength = lengths.getInt();
+                ByteBuffer record = read(entry.getValue(), 8 + keyLength + Math.max(valueLength, 0) + 4);
+                compactedIndex.put(entry.getKey(), position);
+                while (record.hasRemaining()) {
+                    position += out.write(record);
+                }
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(compacted, log, ATOMIC_MOVE, REPLACE_EXISTING);
+        channel = FileChannel.open(log, READ, WRITE);
+        index.clear();
+        index.putAll(compactedIndex);
+        end = position;
+    }
+
+    private Path compacted() {
+        return log.resolveSibling(log.getFileName() + ".compact");
+    }
+
+    private ByteBuffer read(long offset, int length) throws IOException {
+        if (mapped != null && offset + length <= mapped.capacity()) {
+            ByteBuffer buffer = mapped.duplicate();
+            buffer.position((int) offset).limit((int) offset + length);
+            return buffer.slice();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the POM cache log at " + log);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private void write(ByteBuffer buffer, long offset) throws IOException {
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static int checksum(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+
+    private static String key(ResolvedGroupArtifactVersion gav) {
+        return gav.getRepository() + '|' + gav.getGroupId() + ':' + gav.getArtifactId() + ':' +
+               gav.getVersion() + ':' + gav.getDatedSnapshotVersion();
+    }
+}
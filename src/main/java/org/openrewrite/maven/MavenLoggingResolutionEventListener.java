@@ -21,16 +21,43 @@ import org.openrewrite.maven.tree.*;
 
 import java.util.List;
 
+/**
+ * Logs the downloads and failures of POM resolution, and records them in the run's {@link ResolutionMetrics}, if any.
+ */
 class MavenLoggingResolutionEventListener implements ResolutionEventListener {
 
     private final Log logger;
+    private final @Nullable ResolutionMetrics metrics;
+    private final boolean reportFailures;
 
     public MavenLoggingResolutionEventListener(Log logger) {
+        this(logger, null);
+    }
+
+    public MavenLoggingResolutionEventListener(Log logger, @Nullable ResolutionMetrics metrics) {
+        this(logger, metrics, true);
+    }
+
+    private MavenLoggingResolutionEventListener(Log logger, @Nullable ResolutionMetrics metrics, boolean reportFailures) {
         this.logger = logger;
+        this.metrics = metrics;
+        this.reportFailures = reportFailures;
+    }
+
+    /**
+     * A listener for resolving POMs ahead of the linked parse of all POMs, which resolves them again and reports
+     * their failures. Failures are only logged at debug level and not recorded, so that they are reported once.
+     * Downloads are still recorded, as the linked parse finds them in the POM cache and does not report them again.
+     */
+    static MavenLoggingResolutionEventListener aheadOfLinkedParse(Log logger, @Nullable ResolutionMetrics metrics) {
+        return new MavenLoggingResolutionEventListener(logger, metrics, false);
     }
 
     @Override
     public void downloadSuccess(ResolvedGroupArtifactVersion gav, @Nullable ResolvedPom containing) {
+        if (metrics != null) {
+            metrics.resolved(gav.getRepository());
+        }
         if (logger.isDebugEnabled()) {
             logger.debug("Downloaded " + gav + pomContaining(containing));
         }
@@ -38,6 +65,13 @@ class MavenLoggingResolutionEventListener implements ResolutionEventListener {
 
     @Override
     public void downloadError(GroupArtifactVersion gav, List<String> attemptedUris, @Nullable Pom containing) {
+        if (!reportFailures) {
+            logger.debug("Failed to download " + gav + pomContaining(containing) + " ahead of the linked parse");
+            return;
+        }
+        if (metrics != null) {
+            metrics.unresolved();
+        }
         StringBuilder sb = new StringBuilder("Failed to download " + gav + pomContaining(containing) + ". Attempted URIs:");
         attemptedUris.forEach(uri -> sb.append("\n  - ").append(uri));
         logger.warn(sb);
@@ -45,6 +79,13 @@ class MavenLoggingResolutionEventListener implements ResolutionEventListener {
 
     @Override
     public void repositoryAccessFailed(String uri, Throwable e) {
+        if (!reportFailures) {
+            logger.debug("Failed to access maven repository " + uri + " ahead of the linked parse", e);
+            return;
+        }
+        if (metrics != null) {
+            metrics.repositoryFailed(uri);
+        }
         logger.warn("Failed to access maven repository " + uri + " due to: " + e.getMessage());
         logger.debug(e);
     }
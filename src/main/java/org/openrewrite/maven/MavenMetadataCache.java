@@ -0,0 +1,226 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.RepositorySystemSession;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.ipc.http.HttpSender;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Keeps the {@code maven-metadata.xml} files downloaded during a session, which recipes resolving versions ask for
+ * again for every module, so that each is downloaded once. Concurrent requests for the same file wait for the one
+ * in flight rather than downloading it too. Optionally, the files are also persisted, and read back in later runs
+ * until they are older than their freshness TTL.
+ * <p>
+ * Only successful downloads and {@code 404}s are kept. Other responses and I/O errors are returned to the requests
+ * waiting on them, and requested again afterward.
+ * <p>
+ * The cache is kept in the data of the session's repository session, so that it is shared by every module's
+ * execution, including with {@code runPerSubmodule}, and lives exactly as long as the build.
+ */
+class MavenMetadataCache {
+    private final @Nullable Path directory;
+    private final Duration ttl;
+    private final Map<String, CompletableFuture<Entry>> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger downloads = new AtomicInteger();
+
+    /**
+     * @param directory Where to persist metadata, or {@code null} to keep it for the session only.
+     * @param ttl       How long persisted metadata is considered fresh.
+     */
+    MavenMetadataCache(@Nullable Path directory, Duration ttl) {
+        this.directory = directory;
+        this.ttl = ttl;
+    }
+
+    /**
+     * The cache of {@code session} for metadata persisted in {@code directory} for {@code ttl}.
+     */
+    static MavenMetadataCache forSession(MavenSession session, @Nullable Path directory, Duration ttl) {
+        RepositorySystemSession repositorySession = session.getRepositorySession();
+        if (repositorySession == null) {
+            return new MavenMetadataCache(directory, ttl);
+        }
+        String key = MavenMetadataCache.class.getName() + ':' + directory + ':' + ttl;
+        synchronized (MavenMetadataCache.class) {
+            Object cache = repositorySession.getData().get(key);
+            if (!(cache instanceof MavenMetadataCache)) {
+                cache = new MavenMetadataCache(directory, ttl);
+                repositorySession.getData().set(key, cache);
+            }
+            return (MavenMetadataCache) cache;
+        }
+    }
+
+    int getHits() {
+        return hits.get();
+    }
+
+    int getDownloads() {
+        return downloads.get();
+    }
+
+    HttpSender wrap(HttpSender delegate) {
+        return new Sender(delegate);
+    }
+
+    private static boolean isMetadata(HttpSender.Request request) {
+        String path = request.getUrl().getPath();
+        return request.getMethod() == HttpSender.Method.GET && path.endsWith("/maven-metadata.xml");
+    }
+
+    private Entry fetch(HttpSender delegate, HttpSender.Request request) {
+        Path file = directory == null ? null : directory.resolve(fileName(request.getUrl().toString()));
+        if (file != null && isFresh(file)) {
+            try {
+                return new Entry(200, Files.readAllBytes(file), Collections.emptyMap());
+            } catch (IOException ignored) {
+                // download it again
+            }
+        }
+        downloads.incrementAndGet();
+        Entry entry;
+        try (HttpSender.Response response = delegate.send(request)) {
+            entry = new Entry(response.getCode(), readFully(response.getBody()), response.getHeaders());
+        }
+        if (file != null && entry.code == 200) {
+            try {
+                Files.createDirectories(directory);
+                Path tmp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+                Files.write(tmp, entry.body);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException ignored) {
+                // it will be downloaded again in the next run
+            }
+        }
+        return entry;
+    }
+
+    private boolean isFresh(Path file) {
+        try {
+            return Files.isRegularFile(file) &&
+                   System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() < ttl.toMillis();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static String fileName(String url) {
+        return Sha256.hex(Sha256.digest(url.getBytes(UTF_8))) + ".xml";
+    }
+
+    private static byte[] readFully(@Nullable InputStream body) {
+        if (body == null) {
+            return new byte[0];
+        }
+        try {
+            byte[] buffer = new byte[8192];
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int n;
+            while ((n = body.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class Entry {
+        final int code;
+        final byte[] body;
+        final Map<String, List<String>> headers;
+
+        Entry(int code, byte[] body, Map<String, List<String>> headers) {
+            this.code = code;
+            this.body = body;
+            this.headers = headers;
+        }
+
+        boolean isCacheable() {
+            return code == 200 || code == 404;
+        }
+
+        HttpSender.Response toResponse() {
+            return new HttpSender.Response(code, new ByteArrayInputStream(body), headers, () -> {
+            });
+        }
+    }
+
+    class Sender implements HttpSender {
+        private final HttpSender delegate;
+
+        private Sender(HttpSender delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Response send(Request request) {
+            if (!isMetadata(request)) {
+                return delegate.send(request);
+            }
+            String url = request.getUrl().toString();
+            CompletableFuture<Entry> future = new CompletableFuture<>();
+            CompletableFuture<Entry> existing = entries.putIfAbsent(url, future);
+            if (existing != null) {
+                hits.incrementAndGet();
+                try {
+                    return existing.join().toResponse();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+
+            Entry entry;
+            try {
+                entry = fetch(delegate, request);
+            } catch (RuntimeException e) {
+                entries.remove(url, future);
+                future.completeExceptionally(e);
+                throw e;
+            }
+            if (!entry.isCacheable()) {
+                entries.remove(url, future);
+            }
+            future.complete(entry);
+            return entry.toResponse();
+        }
+    }
+}
@@ -16,9 +16,12 @@
 package org.openrewrite.maven;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.maven.RepositoryUtils;
 import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.execution.MavenExecutionRequest;
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.model.PluginExecution;
 import org.apache.maven.model.PluginManagement;
@@ -29,20 +32,27 @@ import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.rtinfo.RuntimeInformation;
+import org.apache.maven.settings.Mirror;
 import org.apache.maven.settings.crypto.DefaultSettingsDecryptionRequest;
 import org.apache.maven.settings.crypto.SettingsDecrypter;
 import org.apache.maven.settings.crypto.SettingsDecryptionRequest;
 import org.apache.maven.settings.crypto.SettingsDecryptionResult;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.repository.RemoteRepository;
 import org.jspecify.annotations.Nullable;
 import org.openrewrite.ExecutionContext;
+import org.openrewrite.FileAttributes;
 import org.openrewrite.HttpSenderExecutionContextView;
+import org.openrewrite.InMemoryExecutionContext;
 import org.openrewrite.ParseExceptionResult;
+import org.openrewrite.Parser;
 import org.openrewrite.PathUtils;
 import org.openrewrite.SourceFile;
 import org.openrewrite.groovy.GroovyParser;
 import org.openrewrite.internal.GitIgnore;
 import org.openrewrite.internal.StringUtils;
+import org.openrewrite.ipc.http.HttpSender;
 import org.openrewrite.ipc.http.HttpUrlConnectionSender;
 import org.openrewrite.java.JavaParser;
 import org.openrewrite.java.internal.JavaTypeCache;
@@ -50,15 +60,19 @@ import org.openrewrite.java.marker.JavaProject;
 import org.openrewrite.java.marker.JavaSourceSet;
 import org.openrewrite.java.marker.JavaVersion;
 import org.openrewrite.jgit.api.Git;
+import org.openrewrite.jgit.api.errors.GitAPIException;
+import org.openrewrite.jgit.diff.DiffEntry;
 import org.openrewrite.jgit.dircache.DirCache;
 import org.openrewrite.jgit.lib.ObjectId;
+import org.openrewrite.jgit.lib.ObjectReader;
 import org.openrewrite.jgit.revwalk.RevCommit;
 import org.openrewrite.jgit.revwalk.RevWalk;
+import org.openrewrite.jgit.treewalk.CanonicalTreeParser;
 import org.openrewrite.jgit.treewalk.TreeWalk;
+import org.openrewrite.jgit.treewalk.filter.NotIgnoredFilter;
 import org.openrewrite.jgit.treewalk.filter.PathFilter;
 import org.openrewrite.kotlin.KotlinParser;
 import org.openrewrite.marker.*;
-import org.openrewrite.marker.ci.BuildEnvironment;
 import org.openrewrite.maven.cache.MavenPomCache;
 import org.openrewrite.maven.internal.MavenXmlMapper;
 import org.openrewrite.maven.internal.RawPom;
@@ -68,6 +82,7 @@ import org.openrewrite.maven.tree.ProfileActivation;
 import org.openrewrite.maven.tree.ResolvedGroupArtifactVersion;
 import org.openrewrite.maven.utilities.MavenWrapper;
 import org.openrewrite.polyglot.OmniParser;
+import org.openrewrite.quark.Quark;
 import org.openrewrite.quark.QuarkParser;
 import org.openrewrite.text.PlainTextParser;
 import org.openrewrite.xml.tree.Xml;
@@ -85,6 +100,14 @@ import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -118,14 +141,16 @@ import static org.openrewrite.tree.ParsingExecutionContextView.view;
 // GitProvenance - If the project exists in the context of a git repository, all source files (for all modules) will have the same GitProvenance.
 // JavaSourceSet - All Java source files and all resource files that exist in src/main or src/test will have a JavaSourceSet marker assigned to them.
 // -----------------------------------------------------------------------------------------------------------------
-public class MavenMojoProjectParser {
+public class MavenMojoProjectParser implements AutoCloseable {
 
+    private static final String BACKGROUND_RESOLUTION = MavenMojoProjectParser.class.getName() + ".backgroundResolution";
     private static final String MVN_JVM_CONFIG = ".mvn/jvm.config";
     private static final String MVN_MAVEN_CONFIG = ".mvn/maven.config";
     private static final String MAVEN_COMPILER_PLUGIN = "org.apache.maven.plugins:maven-compiler-plugin";
 
     @Nullable
-    private static MavenPomCache POM_CACHE;
+    private static MavenPomCache PERSISTENT_POM_CACHE;
+    private static boolean persistentPomCacheBuilt;
 
     private final Log logger;
     private final AtomicBoolean firstWarningLogged = new AtomicBoolean(false);
@@ -149,6 +174,35 @@ public class MavenMojoProjectParser {
     private final SettingsDecrypter settingsDecrypter;
     private final boolean runPerSubmodule;
 
+    private @Nullable ReadAheadReader readAheadReader;
+    private @Nullable ParseFailureCache parseFailureCache;
+    private boolean detectBinaryFiles;
+    private @Nullable List<Parser> textParsers;
+    private Map<Path, MavenProject> sharedSourceRootOwners = emptyMap();
+    private ModuleFilter moduleFilter = new ModuleFilter(emptyList(), emptyList());
+    private @Nullable Set<Path> changedPaths;
+    private @Nullable GitIndexInventory gitIndexInventory;
+    private int pomResolutionThreads = 1;
+    private boolean resolvePomsInBackground;
+    private boolean seedPomCacheFromLocalRepository;
+    private @Nullable RepositorySystem repositorySystem;
+    private @Nullable Duration httpConnectTimeout;
+    private @Nullable Duration httpReadTimeout;
+    private int maxHttpRequestsPerHost;
+    private int httpRetries;
+    private Duration httpRetryBackoff = Duration.ofMillis(250);
+    private @Nullable Duration missingArtifactCacheTtl;
+    private Duration unreachableRepositoryCacheTtl = Duration.ofMinutes(10);
+    private @Nullable NegativeResolutionCache negativeResolutionCache;
+    private long pomCacheMaxEntries = 100_000;
+    private @Nullable Duration pomCacheExpireAfterAccess;
+    private ProfiledRocksdbMavenPomCache.@Nullable Profile pomCacheProfile;
+    private boolean mappedPomCache;
+    private boolean cacheMavenMetadata;
+    private @Nullable Duration mavenMetadataCacheTtl;
+    private @Nullable ResolutionMetrics resolutionMetrics;
+    private boolean persistGitProvenance;
+
     @SuppressWarnings("BooleanParameter")
     public MavenMojoProjectParser(Log logger, Path baseDir, boolean pomCacheEnabled, @Nullable String pomCacheDirectory, RuntimeInformation runtime, boolean skipMavenParsing, Collection<String> exclusions, Collection<String> plainTextMasks, int sizeThresholdMb, MavenSession session, SettingsDecrypter settingsDecrypter, boolean runPerSubmodule) {
         this.logger = logger;
@@ -166,6 +220,266 @@ public class MavenMojoProjectParser {
         this.runPerSubmodule = runPerSubmodule;
     }
 
+    /**
+     * Read up to this many source files into memory ahead of the parser, hiding file system latency
+     * behind parsing. Zero or less disables read-ahead.
+     */
+    public MavenMojoProjectParser readAheadFiles(int readAheadFiles) {
+        if (readAheadReader != null) {
+            readAheadReader.close();
+        }
+        this.readAheadReader = readAheadFiles > 0 ? new ReadAheadReader(readAheadFiles) : null;
+        return this;
+    }
+
+    /**
+     * Releases the threads that read source files ahead of the parser, once the source files are parsed.
+     */
+    @Override
+    public void close() {
+        if (readAheadReader != null) {
+            readAheadReader.close();
+        }
+    }
+
+    /**
+     * Remember files that fail to parse, by content hash and parser version, next to the POM cache. Known
+     * failures are not parsed again unless {@code reparseKnownFailures} is set.
+     */
+    public MavenMojoProjectParser parseFailureCache(boolean enabled, boolean reparseKnownFailures) {
+        this.parseFailureCache = enabled ? new ParseFailureCache(
+                cacheMetadataDirectory().resolve(ParseFailureCache.FILE_NAME), reparseKnownFailures) : null;
+        return this;
+    }
+
+    /**
+     * Sniff the first few kilobytes of resources that would otherwise be parsed as text, and turn the ones
+     * that turn out to be binary into {@link Quark}s without reading them in full.
+     */
+    public MavenMojoProjectParser detectBinaryFiles(boolean detectBinaryFiles) {
+        this.detectBinaryFiles = detectBinaryFiles;
+        return this;
+    }
+
+    /**
+     * Only parse the reactor modules whose {@code groupId:artifactId} matches one of the include globs, if any,
+     * and none of the exclude globs. The POMs of modules that are left out still take part in resolving the
+     * POMs of the selected modules.
+     */
+    public MavenMojoProjectParser modules(Collection<String> includes, Collection<String> excludes) {
+        this.moduleFilter = new ModuleFilter(includes, excludes);
+        return this;
+    }
+
+    /**
+     * Only parse the files that differ between the given git ref and the working tree, so that recipes only
+     * run on those. Sources are still parsed with the full classpath of their project. A {@code null} or
+     * blank ref parses all files.
+     */
+    public MavenMojoProjectParser changedSince(@Nullable String ref) throws MojoExecutionException {
+        if (ref == null || ref.trim().isEmpty()) {
+            return changedPaths(null);
+        }
+        if (repository == null) {
+            throw new MojoExecutionException("Unable to determine the files changed since " + ref + ", " + baseDir + " is not the root of a git repository");
+        }
+        Set<Path> changed;
+        try {
+            changed = changedPaths(repository, ref.trim());
+        } catch (IOException | GitAPIException e) {
+            throw new MojoExecutionException("Unable to determine the files changed since " + ref, e);
+        }
+        logger.info("Parsing only the " + changed.size() + " files that changed since " + ref);
+        return changedPaths(changed);
+    }
+
+    /**
+     * Only parse the given files, or all files when {@code null}.
+     */
+    public MavenMojoProjectParser changedPaths(@Nullable Set<Path> changedPaths) {
+        this.changedPaths = changedPaths == null ? null : changedPaths.stream()
+                .map(path -> path.toAbsolutePath().normalize())
+                .collect(toSet());
+        return this;
+    }
+
+    static Set<Path> changedPaths(org.openrewrite.jgit.lib.Repository repository, String ref) throws IOException, GitAPIException {
+        ObjectId tree = repository.resolve(ref + "^{tree}");
+        if (tree == null) {
+            throw new IOException("Unknown git ref " + ref);
+        }
+        Path workTree = repository.getWorkTree().toPath();
+        Set<Path> changed = new HashSet<>();
+        try (ObjectReader reader = repository.newObjectReader(); Git git = new Git(repository)) {
+            CanonicalTreeParser oldTree = new CanonicalTreeParser();
+            oldTree.reset(reader, tree);
+            List<DiffEntry> diff = git.diff()
+                    .setOldTree(oldTree)
+                    .setShowNameAndStatusOnly(true)
+                    // the working tree is the second tree of the walk; skip what git ignores, like target/
+                    .setPathFilter(new NotIgnoredFilter(1))
+                    .call();
+            for (DiffEntry entry : diff) {
+                if (entry.getChangeType() != DiffEntry.ChangeType.DELETE) {
+                    changed.add(workTree.resolve(entry.getNewPath()).toAbsolutePath().normalize());
+                }
+            }
+        }
+        return changed;
+    }
+
+    private boolean isSelected(Path path) {
+        return changedPaths == null || changedPaths.contains(path.toAbsolutePath().normalize());
+    }
+
+    private List<Path> selected(Collection<Path> paths) {
+        List<Path> selected = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            if (isSelected(path)) {
+                selected.add(path);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * List source files with the help of the git index, only asking the file system about the files the
+     * index does not track.
+     */
+    public MavenMojoProjectParser gitIndexDiscovery(boolean gitIndexDiscovery) {
+        DirCache dirCache = gitIndexDiscovery && repository != null ? dirCache() : null;
+        this.gitIndexInventory = repository == null || dirCache == null ? null : new GitIndexInventory(repository, dirCache);
+        return this;
+    }
+
+    /**
+     * Resolve the reactor's POMs on this many threads to fill the POM cache before they are parsed together.
+     * One or less resolves them all on the calling thread.
+     */
+    public MavenMojoProjectParser pomResolutionThreads(int pomResolutionThreads) {
+        this.pomResolutionThreads = pomResolutionThreads;
+        return this;
+    }
+
+    /**
+     * Resolve the POMs on a background thread while the sources are parsed, and list them after the sources.
+     */
+    public MavenMojoProjectParser resolvePomsInBackground(boolean resolvePomsInBackground) {
+        this.resolvePomsInBackground = resolvePomsInBackground;
+        return this;
+    }
+
+    /**
+     * Before resolving the POMs, put the POMs of the artifacts Maven already resolved for the projects into the
+     * POM cache, along with their parents and imported BOMs, read from the local repository.
+     */
+    public MavenMojoProjectParser seedPomCacheFromLocalRepository(boolean seedPomCacheFromLocalRepository) {
+        this.seedPomCacheFromLocalRepository = seedPomCacheFromLocalRepository;
+        return this;
+    }
+
+    /**
+     * Download POMs through Maven's repository system, using its local repository, mirrors, authentication and
+     * transport, before falling back to rewrite's own HTTP sender. {@code null} downloads them over HTTP only.
+     */
+    public MavenMojoProjectParser repositorySystem(@Nullable RepositorySystem repositorySystem) {
+        this.repositorySystem = repositorySystem;
+        return this;
+    }
+
+    /**
+     * Timeouts of the HTTP connections POMs are downloaded over. {@code null} keeps the default of rewrite's sender.
+     */
+    public MavenMojoProjectParser httpTimeouts(@Nullable Duration connectTimeout, @Nullable Duration readTimeout) {
+        this.httpConnectTimeout = connectTimeout;
+        this.httpReadTimeout = readTimeout;
+        return this;
+    }
+
+    /**
+     * Bound the HTTP requests in flight to any one host, reusing kept-alive connections between them. {@code 0}
+     * leaves requests unbounded.
+     */
+    public MavenMojoProjectParser maxHttpRequestsPerHost(int maxHttpRequestsPerHost) {
+        this.maxHttpRequestsPerHost = maxHttpRequestsPerHost;
+        return this;
+    }
+
+    /**
+     * Retry HTTP requests that fail with an I/O error, are throttled or hit an unavailable server this many times,
+     * doubling the backoff after each attempt.
+     */
+    public MavenMojoProjectParser httpRetries(int httpRetries, Duration backoff) {
+        this.httpRetries = httpRetries;
+        this.httpRetryBackoff = backoff;
+        return this;
+    }
+
+    /**
+     * Remember, across runs and next to the POM cache, the artifacts repositories do not have and the repositories
+     * that could not be reached, and skip them while the entries are younger than these TTLs. {@code null} disables
+     * the negative cache.
+     */
+    public MavenMojoProjectParser negativeResolutionCache(@Nullable Duration missingArtifactTtl, Duration unreachableRepositoryTtl) {
+        this.missingArtifactCacheTtl = missingArtifactTtl;
+        this.unreachableRepositoryCacheTtl = unreachableRepositoryTtl;
+        return this;
+    }
+
+    /**
+     * Bound the in-memory layer of the POM cache, which lives as long as the JVM, to this many entries per kind, and
+     * evict entries not accessed for {@code expireAfterAccess}, unless {@code null}.
+     */
+    public MavenMojoProjectParser pomCacheBounds(long maxEntries, @Nullable Duration expireAfterAccess) {
+        this.pomCacheMaxEntries = maxEntries;
+        this.pomCacheExpireAfterAccess = expireAfterAccess;
+        return this;
+    }
+
+    /**
+     * Keep the POM cache in a RocksDB database tuned with this profile rather than rewrite's default one, shared by
+     * the executions of the Maven session, each of which should release it with
+     * {@code ProfiledRocksdbMavenPomCache.release(ctx, sessionEnding)} once done. Snapshot POMs and metadata expire
+     * after their TTLs. When over {@code maxSizeMb}, the oldest entries are evicted in the background.
+     *
+     * @param compression One of {@code none}, {@code snappy}, {@code zlib}, {@code lz4}, {@code lz4hc} or {@code zstd}.
+     */
+    public MavenMojoProjectParser pomCacheProfile(String compression, long blockCacheSizeMb, int bloomFilterBitsPerKey,
+                                                  Duration snapshotTtl, Duration metadataTtl, long maxSizeMb) {
+        this.pomCacheProfile = new ProfiledRocksdbMavenPomCache.Profile(compression, blockCacheSizeMb << 20,
+                bloomFilterBitsPerKey, snapshotTtl, metadataTtl, maxSizeMb << 20);
+        return this;
+    }
+
+    /**
+     * Persist the POM cache in a memory-mapped log written in pure Java rather than in RocksDB.
+     */
+    public MavenMojoProjectParser mappedPomCache(boolean mappedPomCache) {
+        this.mappedPomCache = mappedPomCache;
+        return this;
+    }
+
+    /**
+     * Download each {@code maven-metadata.xml} once per session, no matter how many recipes and modules ask for it.
+     *
+     * @param persistTtl How long to also keep metadata next to the POM cache for later runs, or {@code null} to
+     *                   keep it for the session only.
+     */
+    public MavenMojoProjectParser mavenMetadataCache(boolean enabled, @Nullable Duration persistTtl) {
+        this.cacheMavenMetadata = enabled;
+        this.mavenMetadataCacheTtl = persistTtl;
+        return this;
+    }
+
+    /**
+     * Persist the git provenance next to the POM cache by the commit {@code HEAD} points to, so that later builds
+     * of the same commit do not walk the repository's history again.
+     */
+    public MavenMojoProjectParser persistGitProvenance(boolean persistGitProvenance) {
+        this.persistGitProvenance = persistGitProvenance;
+        return this;
+    }
+
     protected JavaTypeCache createTypeCache() {
         return new JavaTypeCache();
     }
@@ -173,17 +487,35 @@ public class MavenMojoProjectParser {
     Stream<SourceFile> listSourceFiles(MavenProject mavenProject,
                                        ExecutionContext ctx) throws DependencyResolutionRequiredException, MojoExecutionException, MojoFailureException {
         if (runPerSubmodule) {
+            if (!moduleFilter.test(mavenProject)) {
+                logInfo(mavenProject, "Skipping project that is not selected by the module filters");
+                return Stream.empty();
+            }
+            if (!mayHoldChangedPaths(mavenProject)) {
+                logDebug(mavenProject, "Skipping project without changed files");
+                return Stream.empty();
+            }
             //If running per submodule, parse the source files for only the current project.
             List<Marker> projectProvenance = generateProvenance(mavenProject);
+            if (resolvePomsInBackground) {
+                return listSourceFilesResolvingPomsInBackground(singletonList(mavenProject), singletonList(mavenProject), singletonMap(mavenProject, projectProvenance), ctx);
+            }
             Xml.Document maven = parseMaven(singletonList(mavenProject), singletonMap(mavenProject, projectProvenance), ctx)
                     .get(mavenProject);
             return listSourceFiles(mavenProject, maven, projectProvenance, Arrays.asList(MAIN, TEST), ctx);
         }
         //If running across all projects, iterate and parse source files from each project
-        Map<MavenProject, List<Marker>> projectProvenances = mavenSession.getProjects().stream()
+        List<MavenProject> selectedProjects = selectedProjects();
+        List<MavenProject> projects = withChangedPaths(selectedProjects);
+        Map<MavenProject, List<Marker>> projectProvenances = projects.stream()
           .collect(toMap(Function.identity(), this::generateProvenance));
-        Map<MavenProject, Xml.Document> projectMap = parseMaven(mavenSession.getProjects(), projectProvenances, ctx);
-        return mavenSession.getProjects().stream()
+        if (resolvePomsInBackground) {
+            return listSourceFilesResolvingPomsInBackground(selectedProjects, projects, projectProvenances, ctx);
+        }
+        Map<MavenProject, Xml.Document> projectMap = parseMaven(projects, projectProvenances, ctx);
+        // the owners of shared source roots do not depend on which projects changed
+        findSharedSourceRootOwners(selectedProjects);
+        return projects.stream()
           .flatMap(project -> {
               List<Marker> projectProvenance = projectProvenances.get(project);
               try {
@@ -195,14 +527,81 @@ public class MavenMojoProjectParser {
           });
     }
 
+    private void findSharedSourceRootOwners(List<MavenProject> projects) {
+        sharedSourceRootOwners = sharedSourceRootOwners(projects);
+        for (Map.Entry<Path, MavenProject> owner : sharedSourceRootOwners.entrySet()) {
+            logInfo(owner.getValue(), "Parsing source root " + baseDir.relativize(owner.getKey()) +
+                                      " only once as part of this project, although other projects share it");
+        }
+    }
+
+    /**
+     * List the sources of all projects while their POMs are resolved in the background, followed by the POMs.
+     */
+    private Stream<SourceFile> listSourceFilesResolvingPomsInBackground(List<MavenProject> selectedProjects, List<MavenProject> projects,
+                                                                         Map<MavenProject, List<Marker>> projectProvenances, ExecutionContext ctx) {
+        Future<Map<MavenProject, Xml.Document>> projectMap = parseMavenInBackground(projects, projectProvenances, ctx);
+        findSharedSourceRootOwners(selectedProjects);
+        Stream<SourceFile> sources = projects.stream()
+          .flatMap(project -> {
+              try {
+                  return listSourceFiles(project, null, projectProvenances.get(project), Arrays.asList(MAIN, TEST), ctx);
+              } catch (DependencyResolutionRequiredException | MojoExecutionException e) {
+                  throw sneakyThrow(e);
+              }
+          });
+        Stream<SourceFile> poms = Stream.of(projectMap)
+          .flatMap(future -> {
+              Map<MavenProject, Xml.Document> documents;
+              try {
+                  documents = future.get();
+              } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  throw new IllegalStateException("Interrupted while resolving the Maven POMs", e);
+              } catch (CancellationException e) {
+                  throw new IllegalStateException("The resolution of the Maven POMs was cancelled", e);
+              } catch (ExecutionException e) {
+                  throw sneakyThrow(e.getCause());
+              }
+              return projects.stream()
+                .filter(project -> documents.get(project) != null && isSelected(pomPath(project)))
+                .flatMap(project -> withoutExcluded(project, exclusionMatchers(), Stream.of(documents.get(project)))
+                  .map(addProvenance(projectProvenances.get(project)))
+                  .map(addGitTreeEntryInformation())
+                  .map(this::logParseErrors));
+          });
+        return Stream.concat(sources, poms);
+    }
+
+    private List<MavenProject> selectedProjects() {
+        if (moduleFilter.isEmpty()) {
+            return mavenSession.getProjects();
+        }
+        List<MavenProject> selected = new ArrayList<>();
+        for (MavenProject project : mavenSession.getProjects()) {
+            if (moduleFilter.test(project)) {
+                selected.add(project);
+            } else {
+                logDebug(project, "Skipping project that is not selected by the module filters");
+            }
+        }
+        logger.info("Selected " + selected.size() + " of " + mavenSession.getProjects().size() + " projects using the module filters");
+        return selected;
+    }
+
     private Stream<SourceFile> listSourceFiles(MavenProject mavenProject, Xml.@Nullable Document maven, List<Marker> projectProvenance, List<MavenScope> scopes,
                 ExecutionContext ctx) throws DependencyResolutionRequiredException, MojoExecutionException {
         Stream<SourceFile> sourceFiles = Stream.empty();
         Set<Path> parsedPaths = new HashSet<>();
 
         if (maven != null) {
-            sourceFiles = Stream.of(maven);
+            if (isSelected(baseDir.resolve(maven.getSourcePath()))) {
+                sourceFiles = Stream.of(maven);
+            }
             parsedPaths.add(baseDir.resolve(maven.getSourcePath()));
+        } else if (resolvePomsInBackground && !skipMavenParsing) {
+            // the POM is listed once it has been resolved
+            parsedPaths.add(pomPath(mavenProject));
         }
 
         JavaParser.Builder<? extends JavaParser, ?> javaParserBuilder = JavaParser.fromJavaVersion()
@@ -226,25 +625,35 @@ public class MavenMojoProjectParser {
         if (scopes.contains(TEST)) {
             sourceFiles = Stream.concat(sourceFiles, processTestSources(mavenProject, javaParserBuilder.clone(), kotlinParserBuilder.clone(), groovyParserBuilder.clone(), parsedPaths, ctx));
         }
-        Collection<PathMatcher> exclusionMatchers = exclusions.stream()
-                .map(pattern -> baseDir.getFileSystem().getPathMatcher("glob:" + pattern))
-                .collect(toList());
-        Path buildDirectory = baseDir.relativize(Paths.get(mavenProject.getBuild().getDirectory()));
-        DirCache dirCache = dirCache();
-        sourceFiles = sourceFiles
-                .filter(sourceFile -> !sourceFile.getSourcePath().startsWith(buildDirectory) && !isExcluded(repository, dirCache, exclusionMatchers, sourceFile.getSourcePath()));
+        Collection<PathMatcher> exclusionMatchers = exclusionMatchers();
+        sourceFiles = withoutExcluded(mavenProject, exclusionMatchers, sourceFiles);
 
         Stream<SourceFile> mavenWrapperFiles = parseMavenWrapperFiles(mavenProject, exclusionMatchers, parsedPaths, ctx);
         sourceFiles = Stream.concat(sourceFiles, mavenWrapperFiles);
 
-        Stream<SourceFile> nonProjectResources = parseNonProjectResources(mavenProject, parsedPaths, ctx);
-        sourceFiles = Stream.concat(sourceFiles, nonProjectResources);
+        if (mayHoldUnlistedChangedPaths(mavenProject.getBasedir().toPath(), parsedPaths)) {
+            Stream<SourceFile> nonProjectResources = parseNonProjectResources(mavenProject, parsedPaths, ctx);
+            sourceFiles = Stream.concat(sourceFiles, nonProjectResources);
+        }
 
         return sourceFiles.map(addProvenance(projectProvenance))
                 .map(addGitTreeEntryInformation())
                 .map(this::logParseErrors);
     }
 
+    private Collection<PathMatcher> exclusionMatchers() {
+        return exclusions.stream()
+                .map(pattern -> baseDir.getFileSystem().getPathMatcher("glob:" + pattern))
+                .collect(toList());
+    }
+
+    private Stream<SourceFile> withoutExcluded(MavenProject mavenProject, Collection<PathMatcher> exclusionMatchers, Stream<SourceFile> sourceFiles) {
+        Path buildDirectory = baseDir.relativize(Paths.get(mavenProject.getBuild().getDirectory()));
+        DirCache dirCache = dirCache();
+        return sourceFiles
+                .filter(sourceFile -> !sourceFile.getSourcePath().startsWith(buildDirectory) && !isExcluded(repository, dirCache, exclusionMatchers, sourceFile.getSourcePath()));
+    }
+
     private @Nullable DirCache dirCache() {
         if (!dirCacheInitialized) {
             dirCacheInitialized = true;
@@ -362,11 +771,12 @@ public class MavenMojoProjectParser {
     }
 
     private List<Marker> generateProvenance(MavenProject mavenProject) {
-        BuildEnvironment buildEnvironment = BuildEnvironment.build(System::getenv);
+        SessionProvenance provenance = SessionProvenance.forSession(mavenSession,
+                persistGitProvenance ? cacheMetadataDirectory() : null);
         return Stream.of(
-                        buildEnvironment,
-                        gitProvenance(baseDir, buildEnvironment),
-                        OperatingSystemProvenance.current(),
+                        provenance.getBuildEnvironment(),
+                        provenance.getGitProvenance(baseDir, logger),
+                        provenance.getOperatingSystem(),
                         buildTool,
                         new JavaProject(randomId(), mavenProject.getName(), new JavaProject.Publication(
                                 mavenProject.getGroupId(),
@@ -510,7 +920,8 @@ public class MavenMojoProjectParser {
 
         // Skip generated source roots under the build directory; their compiled classes are
         // already on the classpath via getCompileClasspathElements() and available for type attribution.
-        List<String> sourceRoots = filterGeneratedSourceRoots(mavenProject, mavenProject.getExecutionProject().getCompileSourceRoots());
+        List<String> sourceRoots = withoutSharedSourceRootsOfOtherProjects(mavenProject,
+                filterGeneratedSourceRoots(mavenProject, mavenProject.getExecutionProject().getCompileSourceRoots()));
 
         // scan Java files
         Collection<Path> mainJavaSources = listJavaSources(mavenProject, sourceRoots);
@@ -536,7 +947,7 @@ public class MavenMojoProjectParser {
                     .map(Supplier::get)
                     .flatMap(jp -> {
                         view(ctx).setCharset(getCharset(mavenProject).orElse(null));
-                        return jp.parse(mainJavaSources, baseDir, ctx).onClose(() -> view(ctx).setCharset(null));
+                        return parse(jp, mainJavaSources, ctx).onClose(() -> view(ctx).setCharset(null));
                     });
             sourceFiles = Stream.concat(sourceFiles, parsedJava);
             logDebug(mavenProject, "Scanned " + mainJavaSources.size() + " java source files in main scope.");
@@ -547,7 +958,7 @@ public class MavenMojoProjectParser {
                     .map(Supplier::get)
                     .flatMap(kp -> {
                         view(ctx).setCharset(StandardCharsets.UTF_8); // Kotlin requires UTF-8
-                        return kp.parse(mainKotlinSources, baseDir, ctx).onClose(() -> view(ctx).setCharset(null));
+                        return parse(kp, mainKotlinSources, ctx).onClose(() -> view(ctx).setCharset(null));
                     });
             sourceFiles = Stream.concat(sourceFiles, parsedKotlin);
             logDebug(mavenProject, "Scanned " + mainKotlinSources.size() + " kotlin source files in main scope.");
@@ -556,7 +967,7 @@ public class MavenMojoProjectParser {
         if (!mainGroovySources.isEmpty()) {
             Stream<SourceFile> parsedGroovy = Stream.of((Supplier<GroovyParser>) groovyParserBuilder::build)
                     .map(Supplier::get)
-                    .flatMap(gp -> gp.parse(mainGroovySources, baseDir, ctx));
+                    .flatMap(gp -> parse(gp, mainGroovySources, ctx));
             sourceFiles = Stream.concat(sourceFiles, parsedGroovy);
             logDebug(mavenProject, "Scanned " + mainGroovySources.size() + " groovy source files in main scope.");
         }
@@ -564,10 +975,10 @@ public class MavenMojoProjectParser {
         OmniParser omniParser = omniParser(parsedPaths, mavenProject);
         for (Resource resource : mavenProject.getResources()) {
             Path resourcePath = mavenProject.getBasedir().toPath().resolve(resource.getDirectory());
-            if (Files.exists(resourcePath) && !parsedPaths.contains(resourcePath)) {
+            if (Files.exists(resourcePath) && !parsedPaths.contains(resourcePath) && mayHoldUnlistedChangedPaths(resourcePath, parsedPaths)) {
                 List<Path> accepted = omniParser.acceptedPaths(baseDir, resourcePath);
                 parsedPaths.add(resourcePath);
-                sourceFiles = Stream.concat(sourceFiles, omniParser.parse(accepted, baseDir, ctx));
+                sourceFiles = Stream.concat(sourceFiles, parseResources(omniParser, accepted, ctx));
                 parsedPaths.addAll(accepted);
             }
         }
@@ -575,10 +986,10 @@ public class MavenMojoProjectParser {
         // Also parse webapp resources (e.g., web.xml) for WAR projects
         if ("war".equals(mavenProject.getPackaging())) {
             Path webappPath = mavenProject.getBasedir().toPath().resolve("src/main/webapp");
-            if (Files.exists(webappPath) && !parsedPaths.contains(webappPath)) {
+            if (Files.exists(webappPath) && !parsedPaths.contains(webappPath) && mayHoldUnlistedChangedPaths(webappPath, parsedPaths)) {
                 List<Path> accepted = omniParser.acceptedPaths(baseDir, webappPath);
                 parsedPaths.add(webappPath);
-                sourceFiles = Stream.concat(sourceFiles, omniParser.parse(accepted, baseDir, ctx));
+                sourceFiles = Stream.concat(sourceFiles, parseResources(omniParser, accepted, ctx));
                 parsedPaths.addAll(accepted);
             }
         }
@@ -603,7 +1014,8 @@ public class MavenMojoProjectParser {
 
         // Skip generated source roots under the build directory; their compiled classes are
         // already on the classpath via getTestClasspathElements() and available for type attribution.
-        List<String> testSourceRoots = filterGeneratedSourceRoots(mavenProject, mavenProject.getExecutionProject().getTestCompileSourceRoots());
+        List<String> testSourceRoots = withoutSharedSourceRootsOfOtherProjects(mavenProject,
+                filterGeneratedSourceRoots(mavenProject, mavenProject.getExecutionProject().getTestCompileSourceRoots()));
 
         // scan Java files
         Collection<Path> testJavaSources = listJavaSources(mavenProject, testSourceRoots);
@@ -628,7 +1040,7 @@ public class MavenMojoProjectParser {
                     .map(Supplier::get)
                     .flatMap(jp -> {
                         view(ctx).setCharset(getCharset(mavenProject).orElse(null));
-                        return jp.parse(testJavaSources, baseDir, ctx).onClose(() -> view(ctx).setCharset(null));
+                        return parse(jp, testJavaSources, ctx).onClose(() -> view(ctx).setCharset(null));
                     });
             sourceFiles = Stream.concat(sourceFiles, parsedJava);
             logDebug(mavenProject, "Scanned " + testJavaSources.size() + " java source files in test scope.");
@@ -639,7 +1051,7 @@ public class MavenMojoProjectParser {
                     .map(Supplier::get)
                     .flatMap(kp -> {
                         view(ctx).setCharset(StandardCharsets.UTF_8); // Kotlin requires UTF-8
-                        return kp.parse(testKotlinSources, baseDir, ctx).onClose(() -> view(ctx).setCharset(null));
+                        return parse(kp, testKotlinSources, ctx).onClose(() -> view(ctx).setCharset(null));
                     });
             sourceFiles = Stream.concat(sourceFiles, parsedKotlin);
             logDebug(mavenProject, "Scanned " + testKotlinSources.size() + " kotlin source files in test scope.");
@@ -648,7 +1060,7 @@ public class MavenMojoProjectParser {
         if (!testGroovySources.isEmpty()) {
             Stream<SourceFile> parsedGroovy = Stream.of((Supplier<GroovyParser>) groovyParserBuilder::build)
                     .map(Supplier::get)
-                    .flatMap(gp -> gp.parse(testGroovySources, baseDir, ctx));
+                    .flatMap(gp -> parse(gp, testGroovySources, ctx));
             sourceFiles = Stream.concat(sourceFiles, parsedGroovy);
             logDebug(mavenProject, "Scanned " + testGroovySources.size() + " groovy source files in test scope.");
         }
@@ -656,10 +1068,10 @@ public class MavenMojoProjectParser {
         OmniParser omniParser = omniParser(parsedPaths, mavenProject);
         for (Resource resource : mavenProject.getTestResources()) {
             Path resourcePath = mavenProject.getBasedir().toPath().resolve(resource.getDirectory());
-            if (Files.exists(resourcePath) && !parsedPaths.contains(resourcePath)) {
+            if (Files.exists(resourcePath) && !parsedPaths.contains(resourcePath) && mayHoldUnlistedChangedPaths(resourcePath, parsedPaths)) {
                 List<Path> accepted = omniParser.acceptedPaths(baseDir, resourcePath);
                 parsedPaths.add(resourcePath);
-                sourceFiles = Stream.concat(sourceFiles, omniParser.parse(accepted, baseDir, ctx));
+                sourceFiles = Stream.concat(sourceFiles, parseResources(omniParser, accepted, ctx));
                 parsedPaths.addAll(accepted);
             }
         }
@@ -678,17 +1090,171 @@ public class MavenMojoProjectParser {
             return emptyMap();
         }
 
+        configureMavenResolution(ctx);
+        return parseMavenPoms(mavenProjects, projectProvenances, ctx);
+    }
+
+    /**
+     * Parse the POMs on a background thread, so that their resolution overlaps with parsing the sources. The
+     * resolution settings are configured on {@code ctx} right away, but the POMs are parsed with a context of their
+     * own, sharing its messages, so that the charsets the source parsers set on {@code ctx} do not apply to them.
+     * The thread belongs to the execution {@code ctx} belongs to, which is expected to
+     * {@link #stopBackgroundResolution(ExecutionContext) stop} it before closing the POM cache.
+     */
+    private Future<Map<MavenProject, Xml.Document>> parseMavenInBackground(List<MavenProject> mavenProjects, Map<MavenProject, List<Marker>> projectProvenances, ExecutionContext ctx) {
+        if (skipMavenParsing) {
+            logger.info("Skipping Maven parsing...");
+            return CompletableFuture.completedFuture(emptyMap());
+        }
+
+        stopBackgroundResolution(ctx);
+        configureMavenResolution(ctx);
+        InMemoryExecutionContext pomCtx = new InMemoryExecutionContext(ctx.getOnError());
+        ctx.getMessages().forEach(pomCtx::putMessage);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rewrite-pom-resolution");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ctx.putMessage(BACKGROUND_RESOLUTION, executor);
+        try {
+            return executor.submit(() -> parseMavenPoms(mavenProjects, projectProvenances, pomCtx));
+        } finally {
+            // let the thread end as soon as the POMs are parsed
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Cancel the background resolution of the execution {@code ctx} belongs to, if any, and wait for it to end, so
+     * that it no longer uses the POM cache and HTTP sender of the execution once they are closed.
+     */
+    static void stopBackgroundResolution(ExecutionContext ctx) {
+        ExecutorService executor = ctx.pollMessage(BACKGROUND_RESOLUTION);
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    // resolution stops at its next interruptible point, or once a download times out
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void configureMavenResolution(ExecutionContext ctx) {
         MavenSettings settings = buildSettings();
         MavenExecutionContextView mavenExecutionContext = MavenExecutionContextView.view(ctx);
         mavenExecutionContext.setMavenSettings(settings);
-        mavenExecutionContext.setResolutionListener(new MavenLoggingResolutionEventListener(logger));
+        resolutionMetrics = ResolutionMetrics.start(repositoryUrls(), ctx);
+        mavenExecutionContext.setResolutionListener(new MavenLoggingResolutionEventListener(logger, resolutionMetrics));
         configureProxy(settings, ctx);
+        configureHttpSender(ctx, resolutionMetrics);
 
         // The default pom cache is enabled as a two-layer cache L1 == in-memory and L2 == RocksDb
         // If the flag is set to false, only the default, in-memory cache is used.
-        MavenPomCache pomCache = pomCacheEnabled ? getPomCache(pomCacheDirectory, logger) : mavenExecutionContext.getPomCache();
+        MavenPomCache pomCache = pomCacheEnabled ? getPomCache(ctx) : mavenExecutionContext.getPomCache();
         mavenExecutionContext.setPomCache(pomCache);
+    }
+
+    /**
+     * Decorate the HTTP sender configured on {@code ctx}, in this order, with the per-host limits and retries, the
+     * download metrics, the negative cache, the Maven metadata cache, and Maven's repository system, unless that was
+     * done already. When Maven is offline, nothing is downloaded: POMs are only read from the local repository and
+     * the POM cache, and misses fail right away.
+     */
+    private void configureHttpSender(ExecutionContext ctx, ResolutionMetrics metrics) {
+        HttpSenderExecutionContextView httpSenderContext = HttpSenderExecutionContextView.view(ctx);
+        HttpSender httpSender = httpSenderContext.getHttpSender();
+        if (httpSender instanceof PooledHttpSender || httpSender instanceof NegativeResolutionCache.Sender ||
+            httpSender instanceof MavenMetadataCache.Sender || httpSender instanceof RepositorySystemHttpSender ||
+            httpSender instanceof OfflineHttpSender || httpSender instanceof ResolutionMetrics.Sender) {
+            return;
+        }
+        if (mavenSession.isOffline()) {
+            httpSender = new OfflineHttpSender();
+        } else if (maxHttpRequestsPerHost > 0 || httpRetries > 0) {
+            httpSender = new PooledHttpSender(httpSender,
+                    maxHttpRequestsPerHost > 0 ? maxHttpRequestsPerHost : Integer.MAX_VALUE, httpRetries, httpRetryBackoff);
+        }
+        httpSender = metrics.wrap(httpSender);
+        if (missingArtifactCacheTtl != null && !mavenSession.isOffline()) {
+            if (negativeResolutionCache == null) {
+                negativeResolutionCache = NegativeResolutionCache.load(cacheMetadataDirectory().resolve("negative-cache.properties"),
+                        missingArtifactCacheTtl, unreachableRepositoryCacheTtl);
+            }
+            httpSender = negativeResolutionCache.wrap(httpSender);
+        }
+        if (cacheMavenMetadata) {
+            httpSender = MavenMetadataCache.forSession(mavenSession, mavenMetadataCacheTtl == null ? null :
+                            cacheMetadataDirectory().resolve("metadata"),
+                    mavenMetadataCacheTtl == null ? Duration.ZERO : mavenMetadataCacheTtl).wrap(httpSender);
+        }
+        if (repositorySystem != null) {
+            httpSender = new RepositorySystemHttpSender(repositorySystem, mavenSession.getRepositorySession(),
+                    remoteRepositories(), httpSender, logger);
+        }
+        httpSenderContext.setHttpSender(httpSender);
+    }
+
+    /**
+     * The directory the POM cache and its companions are kept in.
+     */
+    private Path pomCacheWorkspace() {
+        return Paths.get(pomCacheDirectory == null ? System.getProperty("user.home") : pomCacheDirectory);
+    }
+
+    /**
+     * Where the caches kept next to the POM cache persist their files. The POM cache's own directories belong to its
+     * store, RocksDB's in particular, which does not expect files of others among its own.
+     */
+    private Path cacheMetadataDirectory() {
+        return pomCacheWorkspace().resolve(".rewrite-cache-meta");
+    }
+
+    private void saveNegativeResolutionCache(MavenProject topLevelProject) {
+        if (negativeResolutionCache == null) {
+            return;
+        }
+        if (negativeResolutionCache.getSkippedMissing() > 0 || negativeResolutionCache.getSkippedUnreachable() > 0) {
+            logInfo(topLevelProject, "Skipped " + negativeResolutionCache.getSkippedUnreachable() + " request(s) to unreachable repositories and " +
+                                     negativeResolutionCache.getSkippedMissing() + " request(s) for missing artifacts, known from earlier runs");
+        }
+        try {
+            negativeResolutionCache.save();
+        } catch (IOException e) {
+            logger.debug("Unable to save the negative resolution cache", e);
+        }
+    }
+
+    /**
+     * The URLs POMs may be downloaded from: the remote repositories of the projects, and their mirrors.
+     */
+    private List<String> repositoryUrls() {
+        List<String> urls = new ArrayList<>();
+        for (RemoteRepository repository : remoteRepositories()) {
+            urls.add(repository.getUrl());
+        }
+        for (Mirror mirror : mavenSession.getRequest().getMirrors()) {
+            urls.add(mirror.getUrl());
+        }
+        return urls;
+    }
+
+    private Collection<RemoteRepository> remoteRepositories() {
+        Map<String, RemoteRepository> repositories = new LinkedHashMap<>();
+        for (MavenProject project : mavenSession.getProjects()) {
+            for (RemoteRepository repository : RepositoryUtils.toRepos(project.getRemoteArtifactRepositories())) {
+                repositories.putIfAbsent(repository.getUrl(), repository);
+            }
+        }
+        return repositories.values();
+    }
 
+    private Map<MavenProject, Xml.Document> parseMavenPoms(List<MavenProject> mavenProjects, Map<MavenProject, List<Marker>> projectProvenances, ExecutionContext ctx) throws MojoFailureException {
+        MavenExecutionContextView mavenExecutionContext = MavenExecutionContextView.view(ctx);
         MavenProject topLevelProject = mavenSession.getTopLevelProject();
         logInfo(topLevelProject, "Resolving Poms...");
 
@@ -698,6 +1264,10 @@ public class MavenMojoProjectParser {
             mavenSession.getProjectDependencyGraph().getUpstreamProjects(mavenProject, true).forEach(p -> collectPoms(p, allPoms, mavenExecutionContext));
         }
 
+        if (seedPomCacheFromLocalRepository) {
+            seedPomCache(mavenProjects, mavenExecutionContext);
+        }
+
         MavenParser.Builder mavenParserBuilder = MavenParser.builder();
         mavenParserBuilder.property("basedir", topLevelProject.getBasedir().getAbsoluteFile().getParent());
         mavenParserBuilder.property("project.basedir", topLevelProject.getBasedir().getAbsoluteFile().getParent());
@@ -707,9 +1277,28 @@ public class MavenMojoProjectParser {
         mavenSession.getUserProperties().forEach((key, value) ->
                 mavenParserBuilder.property((String) key, (String) value));
 
-        List<SourceFile> mavens = mavenParserBuilder.build()
-                .parse(allPoms, baseDir, ctx)
-                .collect(toList());
+        // the same POMs are parsed by every module's execution, or on every parse of changed paths by rewrite:watch
+        ParsedPomStore parsedPoms = runPerSubmodule || changedPaths != null ? ParsedPomStore.forSession(mavenSession, baseDir) : null;
+        List<SourceFile> mavens = parsedPoms == null ? null : parsedPoms.get(allPoms);
+        if (mavens != null) {
+            logDebug(topLevelProject, "Reusing the " + mavens.size() + " POMs parsed before, none of which changed since");
+        } else {
+            long start = System.nanoTime();
+            if (pomResolutionThreads > 1 && allPoms.size() > 1) {
+                resolvePomsInParallel(mavenParserBuilder, allPoms, ctx);
+            }
+
+            mavens = mavenParserBuilder.build()
+                    .parse(allPoms, baseDir, ctx)
+                    .collect(toList());
+            if (resolutionMetrics != null) {
+                resolutionMetrics.resolutionTime(System.nanoTime() - start);
+            }
+            if (parsedPoms != null) {
+                parsedPoms.put(baseDir, mavens);
+            }
+        }
+        saveNegativeResolutionCache(topLevelProject);
 
         if (logger.isDebugEnabled()) {
             logDebug(topLevelProject, "Base directory : '" + baseDir + "'");
@@ -740,7 +1329,8 @@ public class MavenMojoProjectParser {
                     throw new MojoFailureException(
                             mavenProject,
                             "Failed to parse or resolve the Maven POM file or one of its dependencies; " +
-                                    "We can not reliably continue without this information.",
+                                    "We can not reliably continue without this information." +
+                                    (mavenSession.isOffline() ? " Maven is offline, so only the local repository and the POM cache were searched." : ""),
                             parseExceptionResult.get().getMessage());
                 }
                 projectMap.put(mavenProject, (Xml.Document) document);
@@ -767,6 +1357,135 @@ public class MavenMojoProjectParser {
         return projectMap;
     }
 
+    /**
+     * Resolve each POM on its own, on several threads, so that the dependencies, parents and BOMs they download
+     * land in the shared POM cache. The POMs are resolved level by level of the reactor's parent and BOM import
+     * graph, so that a POM is only resolved once the POMs it inherits from are. Failures are left for the
+     * linked parse of all POMs that follows to report.
+     */
+    private void resolvePomsInParallel(MavenParser.Builder mavenParserBuilder, Set<Path> allPoms, ExecutionContext ctx) {
+        Map<Path, MavenProject> projectsByPath = new HashMap<>();
+        for (MavenProject project : mavenSession.getAllProjects()) {
+            projectsByPath.putIfAbsent(pomPath(project), project);
+        }
+        List<List<Path>> levels = pomResolutionLevels(allPoms, projectsByPath);
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(pomResolutionThreads, allPoms.size()), runnable -> {
+            Thread thread = new Thread(runnable, "rewrite-pom-resolution");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (List<Path> level : levels) {
+                List<Callable<Void>> tasks = new ArrayList<>(level.size());
+                for (Path pom : level) {
+                    tasks.add(() -> {
+                        // a context of its own per POM, sharing the settings, POM cache and HTTP sender of ctx
+                        InMemoryExecutionContext pomCtx = new InMemoryExecutionContext(
+                                t -> logger.debug("Unable to resolve " + pom + " ahead of the linked parse", t));
+                        ctx.getMessages().forEach(pomCtx::putMessage);
+                        MavenExecutionContextView.view(pomCtx).setResolutionListener(
+                                MavenLoggingResolutionEventListener.aheadOfLinkedParse(logger, resolutionMetrics));
+                        mavenParserBuilder.build().parse(singletonList(pom), baseDir, pomCtx).forEach(source -> {
+                        });
+                        return null;
+                    });
+                }
+                for (Future<Void> result : executor.invokeAll(tasks)) {
+                    try {
+                        result.get();
+                    } catch (ExecutionException e) {
+                        logger.debug("Unable to resolve a POM ahead of the linked parse", e.getCause());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        logDebug(mavenSession.getTopLevelProject(), "Resolved " + allPoms.size() + " POMs in " + levels.size() +
+                " levels on " + pomResolutionThreads + " threads in " +
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+    }
+
+    /**
+     * Group POMs by the length of their longest chain of parents and imported BOMs that are among them, so that
+     * each level only depends on earlier levels.
+     */
+    static List<List<Path>> pomResolutionLevels(Collection<Path> poms, Map<Path, MavenProject> projectsByPath) {
+        Map<String, Path> pomsByCoordinates = new HashMap<>();
+        for (Path pom : poms) {
+            MavenProject project = projectsByPath.get(pom);
+            if (project != null) {
+                pomsByCoordinates.putIfAbsent(project.getGroupId() + ':' + project.getArtifactId(), pom);
+            }
+        }
+        Map<Path, Integer> levelByPom = new HashMap<>();
+        List<List<Path>> levels = new ArrayList<>();
+        for (Path pom : poms) {
+            int level = pomResolutionLevel(pom, projectsByPath, pomsByCoordinates, levelByPom, new HashSet<>());
+            while (levels.size() <= level) {
+                levels.add(new ArrayList<>());
+            }
+            levels.get(level).add(pom);
+        }
+        return levels;
+    }
+
+    private static int pomResolutionLevel(Path pom, Map<Path, MavenProject> projectsByPath, Map<String, Path> pomsByCoordinates,
+                                          Map<Path, Integer> levelByPom, Set<Path> visiting) {
+        Integer known = levelByPom.get(pom);
+        if (known != null) {
+            return known;
+        }
+        MavenProject project = projectsByPath.get(pom);
+        if (project == null || !visiting.add(pom)) {
+            // not part of the reactor, or a cycle that the linked parse will report
+            return 0;
+        }
+        List<Path> upstream = new ArrayList<>();
+        MavenProject parent = project.getParent();
+        if (parent != null && parent.getFile() != null) {
+            Path parentPom = pomsByCoordinates.get(parent.getGroupId() + ':' + parent.getArtifactId());
+            if (parentPom != null) {
+                upstream.add(parentPom);
+            }
+        }
+        if (project.getOriginalModel() != null && project.getOriginalModel().getDependencyManagement() != null) {
+            for (Dependency dependency : project.getOriginalModel().getDependencyManagement().getDependencies()) {
+                if ("import".equals(dependency.getScope())) {
+                    // reactor BOMs are commonly imported with the importing project's own groupId
+                    String groupId = "${project.groupId}".equals(dependency.getGroupId()) ? project.getGroupId() : dependency.getGroupId();
+                    Path bom = pomsByCoordinates.get(groupId + ':' + dependency.getArtifactId());
+                    if (bom != null) {
+                        upstream.add(bom);
+                    }
+                }
+            }
+        }
+        int level = 0;
+        for (Path upstreamPom : upstream) {
+            level = Math.max(level, pomResolutionLevel(upstreamPom, projectsByPath, pomsByCoordinates, levelByPom, visiting) + 1);
+        }
+        visiting.remove(pom);
+        levelByPom.put(pom, level);
+        return level;
+    }
+
+    private void seedPomCache(List<MavenProject> mavenProjects, MavenExecutionContextView ctx) {
+        LocalRepositoryPomSeeder seeder = LocalRepositoryPomSeeder.create(ctx);
+        if (seeder == null) {
+            logger.debug("Not seeding the POM cache, the local repository " + ctx.getLocalRepository().getUri() + " is not a directory");
+            return;
+        }
+        long start = System.nanoTime();
+        mavenProjects.forEach(seeder::seed);
+        logDebug(mavenSession.getTopLevelProject(), "Seeded the POM cache with " + seeder.getSeeded() +
+                " POMs of artifacts Maven resolved in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+    }
+
     /**
      * Recursively navigate the maven project to collect any poms that are local (on disk)
      *
@@ -786,7 +1505,8 @@ public class MavenMojoProjectParser {
         if (project.getCollectedProjects() != null) {
             for (MavenProject child : project.getCollectedProjects()) {
                 Path path = pomPath(child);
-                if (!paths.contains(path)) {
+                // modules left out by the module filters are only collected when upstream of a selected module
+                if (!paths.contains(path) && moduleFilter.test(child)) {
                     collectPoms(child, paths, ctx);
                 }
             }
@@ -817,11 +1537,34 @@ public class MavenMojoProjectParser {
         return pomPath;
     }
 
-    private static MavenPomCache getPomCache(@Nullable String pomCacheDirectory, Log logger) {
-        if (POM_CACHE == null) {
-            POM_CACHE = new MavenPomCacheBuilder(logger).build(pomCacheDirectory);
+    /**
+     * The persistent layer of the POM cache is shared by every run in this JVM, and so is its in-memory layer, which
+     * is rebuilt when a run is configured with other bounds than the previous one.
+     */
+    private MavenPomCache getPomCache(ExecutionContext ctx) {
+        MavenPomCacheBuilder builder = new MavenPomCacheBuilder(logger)
+                .maximumSize(pomCacheMaxEntries)
+                .expireAfterAccess(pomCacheExpireAfterAccess)
+                .mappedLog(mappedPomCache);
+        if (pomCacheProfile != null) {
+            try {
+                ProfiledRocksdbMavenPomCache profiled = ProfiledRocksdbMavenPomCache.acquire(mavenSession,
+                        pomCacheWorkspace().resolve(".rewrite-pom-cache"), pomCacheProfile, logger, ctx);
+                return MeteredMavenPomCache.composite(builder.inMemory(), profiled);
+            } catch (Throwable e) {
+                logger.warn("Unable to open the tuned POM cache, falling back to the default one");
+                logger.debug(e);
+            }
+        }
+        MavenPomCache persistent;
+        synchronized (MavenMojoProjectParser.class) {
+            if (!persistentPomCacheBuilt) {
+                PERSISTENT_POM_CACHE = builder.persistent(pomCacheDirectory);
+                persistentPomCacheBuilt = true;
+            }
+            persistent = PERSISTENT_POM_CACHE;
         }
-        return POM_CACHE;
+        return persistent == null ? builder.inMemory() : MeteredMavenPomCache.composite(builder.inMemory(), persistent);
     }
 
     private MavenSettings buildSettings() {
@@ -900,15 +1643,16 @@ public class MavenMojoProjectParser {
     }
 
     private void configureProxy(MavenSettings settings, ExecutionContext ctx) {
-        if (settings.getProxies() == null || settings.getProxies().getProxies().isEmpty()) {
-            return;
-        }
         // Use the first active proxy
-        MavenSettings.Proxy activeProxy = settings.getProxies().getProxies().stream()
+        MavenSettings.Proxy activeProxy = settings.getProxies() == null ? null : settings.getProxies().getProxies().stream()
                 .filter(p -> p.getActive() == null || p.getActive())
                 .findFirst()
                 .orElse(null);
         if (activeProxy == null) {
+            if ((httpConnectTimeout != null || httpReadTimeout != null) &&
+                HttpSenderExecutionContextView.view(ctx).getHttpSender() instanceof HttpUrlConnectionSender) {
+                HttpSenderExecutionContextView.view(ctx).setHttpSender(newHttpSender(null));
+            }
             return;
         }
 
@@ -932,10 +1676,8 @@ public class MavenMojoProjectParser {
             });
         }
 
-        HttpUrlConnectionSender proxiedSender = new HttpUrlConnectionSender(
-                Duration.ofSeconds(1), Duration.ofSeconds(10), proxy);
-        HttpUrlConnectionSender directSender = new HttpUrlConnectionSender(
-                Duration.ofSeconds(1), Duration.ofSeconds(10));
+        HttpUrlConnectionSender proxiedSender = newHttpSender(proxy);
+        HttpUrlConnectionSender directSender = newHttpSender(null);
 
         String nonProxyHosts = activeProxy.getNonProxyHosts();
         if (nonProxyHosts == null || nonProxyHosts.isEmpty()) {
@@ -958,6 +1700,14 @@ public class MavenMojoProjectParser {
         }
     }
 
+    private HttpUrlConnectionSender newHttpSender(java.net.@Nullable Proxy proxy) {
+        Duration connectTimeout = httpConnectTimeout == null ? Duration.ofSeconds(1) : httpConnectTimeout;
+        Duration readTimeout = httpReadTimeout == null ? Duration.ofSeconds(10) : httpReadTimeout;
+        return proxy == null ?
+                new HttpUrlConnectionSender(connectTimeout, readTimeout) :
+                new HttpUrlConnectionSender(connectTimeout, readTimeout, proxy);
+    }
+
     private static @Nullable RawRepositories buildRawRepositories(@Nullable List<Repository> repositoriesToMap) {
         if (repositoriesToMap == null) {
             return null;
@@ -1024,6 +1774,126 @@ public class MavenMojoProjectParser {
         };
     }
 
+    /**
+     * Source roots that are compile or test source roots of more than one project (as commonly set up with
+     * the build-helper-maven-plugin), mapped to the project that parses them. That is the project whose base
+     * directory is the closest parent of the root, or the first project in the reactor that declares it.
+     */
+    static Map<Path, MavenProject> sharedSourceRootOwners(List<MavenProject> projects) {
+        Map<Path, Set<MavenProject>> projectsByRoot = new LinkedHashMap<>();
+        for (MavenProject project : projects) {
+            List<String> roots = new ArrayList<>(project.getExecutionProject().getCompileSourceRoots());
+            roots.addAll(project.getExecutionProject().getTestCompileSourceRoots());
+            for (String root : filterGeneratedSourceRoots(project, roots)) {
+                projectsByRoot.computeIfAbsent(sourceRootPath(project, root), k -> new LinkedHashSet<>()).add(project);
+            }
+        }
+        Map<Path, MavenProject> owners = new LinkedHashMap<>();
+        for (Map.Entry<Path, Set<MavenProject>> sharing : projectsByRoot.entrySet()) {
+            if (sharing.getValue().size() < 2) {
+                continue;
+            }
+            MavenProject owner = null;
+            for (MavenProject project : sharing.getValue()) {
+                Path basedir = project.getBasedir().toPath().toAbsolutePath().normalize();
+                if (sharing.getKey().startsWith(basedir) &&
+                    (owner == null || basedir.getNameCount() > owner.getBasedir().toPath().toAbsolutePath().normalize().getNameCount())) {
+                    owner = project;
+                }
+            }
+            owners.put(sharing.getKey(), owner == null ? sharing.getValue().iterator().next() : owner);
+        }
+        return owners;
+    }
+
+    /**
+     * The {@code projects} that may hold one of the changed paths, when only those are parsed.
+     */
+    private List<MavenProject> withChangedPaths(List<MavenProject> projects) {
+        if (changedPaths == null) {
+            return projects;
+        }
+        List<MavenProject> changed = new ArrayList<>(projects.size());
+        for (MavenProject project : projects) {
+            if (mayHoldChangedPaths(project)) {
+                changed.add(project);
+            } else {
+                logDebug(project, "Skipping project without changed files");
+            }
+        }
+        return changed;
+    }
+
+    private boolean mayHoldChangedPaths(MavenProject mavenProject) {
+        if (changedPaths == null) {
+            return true;
+        }
+        Path basedir = mavenProject.getBasedir().toPath().toAbsolutePath().normalize();
+        // source and resource directories may lie outside the project's directory
+        List<Path> roots = new ArrayList<>();
+        roots.add(basedir);
+        for (String root : mavenProject.getCompileSourceRoots()) {
+            roots.add(sourceRootPath(mavenProject, root));
+        }
+        for (String root : mavenProject.getTestCompileSourceRoots()) {
+            roots.add(sourceRootPath(mavenProject, root));
+        }
+        for (Resource resource : mavenProject.getResources()) {
+            roots.add(sourceRootPath(mavenProject, resource.getDirectory()));
+        }
+        for (Resource resource : mavenProject.getTestResources()) {
+            roots.add(sourceRootPath(mavenProject, resource.getDirectory()));
+        }
+        Set<Path> nestedProjects = pathsToOtherMavenProjects(mavenProject).stream()
+                .map(path -> path.toAbsolutePath().normalize())
+                .filter(path -> path.startsWith(basedir) && !path.equals(basedir))
+                .collect(toSet());
+        for (Path changed : changedPaths) {
+            for (Path root : roots) {
+                if (changed.startsWith(root) && (!root.equals(basedir) || nestedProjects.stream().noneMatch(changed::startsWith))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether walking {@code directory} may find changed paths that were not listed yet, when only those are parsed.
+     */
+    private boolean mayHoldUnlistedChangedPaths(Path directory, Set<Path> listed) {
+        if (changedPaths == null) {
+            return true;
+        }
+        Path start = directory.toAbsolutePath().normalize();
+        for (Path changed : changedPaths) {
+            if (changed.startsWith(start) && !listed.contains(changed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<String> withoutSharedSourceRootsOfOtherProjects(MavenProject mavenProject, List<String> sourceRoots) {
+        if (sharedSourceRootOwners.isEmpty()) {
+            return sourceRoots;
+        }
+        List<String> owned = new ArrayList<>(sourceRoots.size());
+        for (String root : sourceRoots) {
+            MavenProject owner = sharedSourceRootOwners.get(sourceRootPath(mavenProject, root));
+            if (owner == null || owner == mavenProject) {
+                owned.add(root);
+            } else {
+                logDebug(mavenProject, "Skipping source root " + root + ", which is parsed as part of " + owner.getName());
+            }
+        }
+        return owned;
+    }
+
+    private static Path sourceRootPath(MavenProject mavenProject, String sourceRoot) {
+        return mavenProject.getBasedir().toPath().resolve(sourceRoot).toAbsolutePath().normalize();
+    }
+
     private static List<String> filterGeneratedSourceRoots(MavenProject mavenProject, List<String> sourceRoots) {
         Path buildDirectory = Paths.get(mavenProject.getBuild().getDirectory());
         return sourceRoots.stream()
@@ -1031,7 +1901,7 @@ public class MavenMojoProjectParser {
                 .collect(toList());
     }
 
-    private static Collection<Path> listJavaSources(MavenProject mavenProject, List<String> compileSourceRoots) throws MojoExecutionException {
+    private Collection<Path> listJavaSources(MavenProject mavenProject, List<String> compileSourceRoots) throws MojoExecutionException {
         Set<Path> javaSources = new LinkedHashSet<>();
         for (String compileSourceRoot : compileSourceRoots) {
             javaSources.addAll(listSources(mavenProject.getBasedir().toPath().resolve(compileSourceRoot), ".java"));
@@ -1062,7 +1932,7 @@ public class MavenMojoProjectParser {
         return listSources(mavenProject.getBasedir().toPath().resolve(fallbackSourceDirectory), ".kt");
     }
 
-    private static List<Path> listGroovySources(MavenProject mavenProject, List<String> compileSourceRoots) throws MojoExecutionException {
+    private List<Path> listGroovySources(MavenProject mavenProject, List<String> compileSourceRoots) throws MojoExecutionException {
         List<Path> groovySources = new ArrayList<>();
         for (String compileSourceRoot : compileSourceRoots) {
             groovySources.addAll(listSources(mavenProject.getBasedir().toPath().resolve(compileSourceRoot), ".groovy"));
@@ -1082,10 +1952,35 @@ public class MavenMojoProjectParser {
         return groovySources;
     }
 
-    private static List<Path> listSources(Path sourceDirectory, String extension) throws MojoExecutionException {
+    private List<Path> listSources(Path sourceDirectory, String extension) throws MojoExecutionException {
         if (!Files.exists(sourceDirectory)) {
             return emptyList();
         }
+        if (changedPaths != null) {
+            // only changed paths are parsed, so there is no need to list the others
+            Path directory = sourceDirectory.toAbsolutePath().normalize();
+            List<Path> changed = new ArrayList<>();
+            for (Path path : changedPaths) {
+                if (path.startsWith(directory) && path.toString().endsWith(extension) && Files.isRegularFile(path)) {
+                    changed.add(path);
+                }
+            }
+            return changed;
+        }
+        if (gitIndexInventory != null) {
+            try {
+                List<Path> indexed = gitIndexInventory.listFiles(sourceDirectory, extension);
+                if (indexed != null) {
+                    return indexed;
+                }
+            } catch (IOException e) {
+                throw new MojoExecutionException("Unable to list source files of " + extension, e);
+            }
+        }
+        return walkSources(sourceDirectory, extension);
+    }
+
+    private static List<Path> walkSources(Path sourceDirectory, String extension) throws MojoExecutionException {
         try {
             List<Path> result = new ArrayList<>();
             Files.walkFileTree(sourceDirectory, new SimpleFileVisitor<Path>() {
@@ -1119,7 +2014,7 @@ public class MavenMojoProjectParser {
                     .filter(it -> !isExcluded(repository, dirCache(), exclusions, it))
                     .filter(omniParser::accept)
                     .collect(toList());
-            sourceFiles = omniParser.parse(mavenWrapperFiles, baseDir, ctx);
+            sourceFiles = parse(omniParser, mavenWrapperFiles, ctx);
         }
         return sourceFiles;
     }
@@ -1128,7 +2023,76 @@ public class MavenMojoProjectParser {
         //Collect any additional yaml/properties/xml files that are NOT already in a source set.
         OmniParser omniParser = omniParser(parsedPaths, mavenProject);
         List<Path> accepted = omniParser.acceptedPaths(baseDir, mavenProject.getBasedir().toPath());
-        return omniParser.parse(accepted, baseDir, ctx);
+        return parseResources(omniParser, accepted, ctx);
+    }
+
+    private Stream<SourceFile> parseResources(OmniParser omniParser, List<Path> accepted, ExecutionContext ctx) {
+        List<Path> paths = selected(accepted);
+        if (!detectBinaryFiles) {
+            return parse(omniParser, paths, ctx);
+        }
+        List<Path> toParse = new ArrayList<>(paths.size());
+        List<SourceFile> binaries = new ArrayList<>();
+        for (Path path : paths) {
+            if (isParsedAsText(path) && BinaryFileSniffer.isBinary(path)) {
+                binaries.add(new Quark(randomId(), baseDir.relativize(path), Markers.EMPTY, null, FileAttributes.fromPath(path)));
+            } else {
+                toParse.add(path);
+            }
+        }
+        if (!binaries.isEmpty()) {
+            logger.debug("Skipped parsing " + binaries.size() + " binary files.");
+        }
+        return Stream.concat(binaries.stream(), parse(omniParser, toParse, ctx));
+    }
+
+    /**
+     * Files that no resource parser or plain text mask accepts become {@link Quark}s without being read,
+     * so only the others are worth sniffing.
+     */
+    private boolean isParsedAsText(Path path) {
+        if (textParsers == null) {
+            List<Parser> parsers = new ArrayList<>(OmniParser.defaultResourceParsers());
+            parsers.add(PlainTextParser.builder().plainTextMasks(baseDir, plainTextMasks).build());
+            textParsers = parsers;
+        }
+        for (Parser parser : textParsers) {
+            if (parser.accept(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Stream<SourceFile> parse(Parser parser, Collection<Path> listed, ExecutionContext ctx) {
+        Collection<Path> paths = changedPaths == null ? listed : selected(listed);
+        if (paths.isEmpty()) {
+            return Stream.empty();
+        }
+        ParseFailureCache failureCache = parseFailureCache;
+        if (failureCache == null) {
+            return parseFiles(parser, paths, ctx);
+        }
+        List<Path> toParse = new ArrayList<>(paths.size());
+        List<SourceFile> knownFailures = new ArrayList<>();
+        for (Path path : paths) {
+            SourceFile knownFailure = failureCache.knownFailure(parser, path, baseDir);
+            if (knownFailure == null) {
+                toParse.add(path);
+            } else {
+                knownFailures.add(knownFailure);
+            }
+        }
+        return Stream.concat(knownFailures.stream(), toParse.isEmpty() ? Stream.empty() :
+                parseFiles(parser, toParse, ctx).map(sourceFile -> failureCache.record(parser, sourceFile, baseDir)));
+    }
+
+    private Stream<SourceFile> parseFiles(Parser parser, Collection<Path> paths, ExecutionContext ctx) {
+        if (readAheadReader == null) {
+            return parser.parse(paths, baseDir, ctx);
+        }
+        ReadAheadReader.Window window = readAheadReader.window(paths);
+        return parser.parseInputs(window.inputs(), baseDir, ctx).onClose(window::close);
     }
 
     private OmniParser omniParser(Set<Path> parsedPaths, MavenProject mavenProject) {
@@ -1161,19 +2125,6 @@ public class MavenMojoProjectParser {
                 .collect(toList());
     }
 
-    private static final Map<Path, GitProvenance> REPO_ROOT_TO_PROVENANCE = new HashMap<>();
-
-    private @Nullable GitProvenance gitProvenance(Path baseDir, @Nullable BuildEnvironment buildEnvironment) {
-        try {
-            // Computing git provenance can be expensive for repositories with many commits, ensure we do it only once
-            return REPO_ROOT_TO_PROVENANCE.computeIfAbsent(baseDir, dir -> GitProvenance.fromProjectDirectory(dir, buildEnvironment));
-        } catch (Exception e) {
-            // Logging at a low level as this is unlikely to happen except in non-git projects, where it is expected
-            logger.debug("Unable to determine git provenance", e);
-        }
-        return null;
-    }
-
     private void logError(MavenProject mavenProject, String message) {
         logger.error("Project [" + mavenProject.getName() + "] " + message);
     }
@@ -1203,6 +2154,11 @@ public class MavenMojoProjectParser {
 
     private static @Nullable Pom createPom(MavenProject project) {
         Path pomPath = project.getFile().toPath();
+        Model model = project.getOriginalModel();
+        if (model != null && project.getFile().equals(model.getPomFile())) {
+            // Maven already read and bound this POM, unless a plugin replaced the project's file since
+            return RawPomConverter.toRawPom(model).toPom(project.getBasedir().toPath().relativize(pomPath), null);
+        }
         try (InputStream is = Files.newInputStream(pomPath)) {
             RawPom rawPom = RawPom.parse(is, null);
             return rawPom.toPom(project.getBasedir().toPath().relativize(pomPath), null);
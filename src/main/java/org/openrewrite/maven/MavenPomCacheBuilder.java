@@ -15,42 +15,138 @@
  */
 package org.openrewrite.maven;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
 import org.apache.maven.plugin.logging.Log;
 import org.jspecify.annotations.Nullable;
-import org.openrewrite.maven.cache.CompositeMavenPomCache;
 import org.openrewrite.maven.cache.InMemoryMavenPomCache;
 import org.openrewrite.maven.cache.MavenPomCache;
 import org.openrewrite.maven.cache.RocksdbMavenPomCache;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 
 public class MavenPomCacheBuilder {
+    private static final String CACHE_NAME = "rewrite-maven-plugin";
+
+    @Nullable
+    private static InMemoryMavenPomCache IN_MEMORY_POM_CACHE;
+    @Nullable
+    private static String IN_MEMORY_POM_CACHE_BOUNDS;
+
     private final Log logger;
+    private long maximumSize = 100_000;
+    private @Nullable Duration expireAfterAccess;
+    private boolean mappedLog;
 
     public MavenPomCacheBuilder(Log logger) {
         this.logger = logger;
     }
 
+    /**
+     * Bound each of the in-memory caches to this many entries, evicting with Caffeine's W-TinyLFU policy.
+     */
+    public MavenPomCacheBuilder maximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    /**
+     * Persist POMs in a memory-mapped log written in pure Java rather than in RocksDB. The log is also what the
+     * cache falls back to when RocksDB's native library is not available.
+     */
+    public MavenPomCacheBuilder mappedLog(boolean mappedLog) {
+        this.mappedLog = mappedLog;
+        return this;
+    }
+
+    /**
+     * Evict in-memory entries that have not been read or written for this long, so that a long-lived JVM such as
+     * an mvnd daemon does not hold on to the POMs of builds long gone. {@code null} keeps them until evicted by size.
+     */
+    public MavenPomCacheBuilder expireAfterAccess(@Nullable Duration expireAfterAccess) {
+        this.expireAfterAccess = expireAfterAccess;
+        return this;
+    }
+
     public MavenPomCache build(@Nullable String pomCacheDirectory) {
-        if (isJvm64Bit()) {
+        MavenPomCache persistent = persistent(pomCacheDirectory);
+        return persistent == null ? inMemory() : MeteredMavenPomCache.composite(inMemory(), persistent);
+    }
+
+    /**
+     * The persistent layer of the POM cache: RocksDB, or the memory-mapped log, either when asked for or as the
+     * fallback when RocksDB cannot be used. {@code null} when neither can be created.
+     */
+    @Nullable
+    MavenPomCache persistent(@Nullable String pomCacheDirectory) {
+        //Default directory in the RocksdbMavenPomCache is ".rewrite-cache"
+        Path workspace = Paths.get(pomCacheDirectory == null ? System.getProperty("user.home") : pomCacheDirectory);
+        if (mappedLog) {
+            logger.debug("Using the memory-mapped POM cache");
+        } else if (isJvm64Bit()) {
             try {
-                //Default directory in the RocksdbMavenPomCache is ".rewrite-cache"
-                Path workspace = Paths.get(pomCacheDirectory == null ? System.getProperty("user.home") : pomCacheDirectory);
-                // Construct the Rocksdb cache before the InMemory one: if Rocksdb fails, the next line never runs,
-                // so the only InMemoryMavenPomCache created is the fallback below. That keeps its metrics registered
-                // exactly once on the global registry, avoiding duplicate-gauge warnings.
-                RocksdbMavenPomCache rocksdb = new RocksdbMavenPomCache(workspace);
-                return new CompositeMavenPomCache(new InMemoryMavenPomCache(), rocksdb);
+                return new RocksdbMavenPomCache(workspace);
             } catch (Throwable e) {
-                logger.warn("Unable to initialize RocksdbMavenPomCache, falling back to InMemoryMavenPomCache");
+                logger.warn("Unable to initialize RocksdbMavenPomCache, falling back to the memory-mapped POM cache");
                 logger.debug(e);
             }
         } else {
-            logger.warn("RocksdbMavenPomCache is not supported on 32-bit JVM. falling back to InMemoryMavenPomCache");
+            logger.warn("RocksdbMavenPomCache is not supported on 32-bit JVM. falling back to the memory-mapped POM cache");
+        }
+
+        try {
+            return new MappedLogMavenPomCache(workspace.resolve(".rewrite-cache-log"), logger);
+        } catch (Throwable e) {
+            logger.warn("Unable to initialize the memory-mapped POM cache, falling back to InMemoryMavenPomCache");
+            logger.debug(e);
+        }
+        return null;
+    }
+
+    /**
+     * The in-memory layer of the POM caches, shared by every cache built in this JVM, so that a long-lived one such
+     * as an mvnd daemon keeps the POMs of earlier builds. It is rebuilt when asked for with other bounds than it was
+     * built with, so that each build gets the bounds it is configured with.
+     * <p>
+     * It records its statistics, which {@link InMemoryMavenPomCache} publishes as hit, miss and eviction meters to
+     * the global registry, and so to the plugin's meter registry. Those of the cache it replaces are removed first,
+     * so that the meters always describe the live cache.
+     */
+    InMemoryMavenPomCache inMemory() {
+        String bounds = maximumSize + " entries" + (expireAfterAccess == null ? "" : ", expiring after " + expireAfterAccess);
+        synchronized (MavenPomCacheBuilder.class) {
+            if (IN_MEMORY_POM_CACHE == null || !bounds.equals(IN_MEMORY_POM_CACHE_BOUNDS)) {
+                if (IN_MEMORY_POM_CACHE != null) {
+                    logger.info("Rebuilding the in-memory POM cache with " + bounds + " rather than " + IN_MEMORY_POM_CACHE_BOUNDS);
+                    removeMeters();
+                }
+                IN_MEMORY_POM_CACHE = new InMemoryMavenPomCache(CACHE_NAME, cache(maximumSize), cache(maximumSize),
+                        cache(Math.min(maximumSize, 10_000)), cache(maximumSize));
+                IN_MEMORY_POM_CACHE_BOUNDS = bounds;
+            }
+            return IN_MEMORY_POM_CACHE;
         }
+    }
 
-        return new InMemoryMavenPomCache();
+    private static void removeMeters() {
+        for (Meter meter : Metrics.globalRegistry.getMeters()) {
+            String cache = meter.getId().getTag("cache");
+            if (cache != null && cache.endsWith(" - " + CACHE_NAME)) {
+                Metrics.globalRegistry.remove(meter);
+            }
+        }
+    }
+
+    private <K, V> Cache<K, V> cache(long maximumSize) {
+        Caffeine<Object, Object> caffeine = Caffeine.newBuilder().recordStats().maximumSize(maximumSize);
+        if (expireAfterAccess != null) {
+            caffeine.expireAfterAccess(expireAfterAccess);
+        }
+        return caffeine.build();
     }
 
     private static boolean isJvm64Bit() {
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Metrics;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.maven.cache.CompositeMavenPomCache;
+import org.openrewrite.maven.cache.MavenPomCache;
+import org.openrewrite.maven.tree.*;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the lookups answered and missed by one layer of a {@link CompositeMavenPomCache}, and the time they take.
+ * The counts of all the caches of a layer are kept together for the life of the JVM, like the caches themselves,
+ * and published once to the global registry as {@code rewrite.maven.pom.cache.gets} and
+ * {@code rewrite.maven.pom.cache.latency}, tagged with the layer.
+ */
+class MeteredMavenPomCache implements MavenPomCache {
+    static final String L1 = "l1";
+    static final String L2 = "l2";
+
+    private static final Map<String, Stats> LAYERS = new ConcurrentHashMap<>();
+
+    private final MavenPomCache delegate;
+    private final Stats stats;
+
+    private MeteredMavenPomCache(MavenPomCache delegate, String layer) {
+        this.delegate = delegate;
+        this.stats = stats(layer);
+    }
+
+    /**
+     * A cache with {@code l1} in front of {@code l2}, each metered as their layer.
+     */
+    static MavenPomCache composite(MavenPomCache l1, MavenPomCache l2) {
+        return new CompositeMavenPomCache(new MeteredMavenPomCache(l1, L1), new MeteredMavenPomCache(l2, L2));
+    }
+
+    static Stats stats(String layer) {
+        return LAYERS.computeIfAbsent(layer, l -> {
+            Stats stats = new Stats();
+            FunctionCounter.builder("rewrite.maven.pom.cache.gets", stats.hits, LongAdder::doubleValue)
+                    .tag("layer", l).tag("result", "hit")
+                    .register(Metrics.globalRegistry);
+            FunctionCounter.builder("rewrite.maven.pom.cache.gets", stats.misses, LongAdder::doubleValue)
+                    .tag("layer", l).tag("result", "miss")
+                    .register(Metrics.globalRegistry);
+            FunctionTimer.builder("rewrite.maven.pom.cache.latency", stats,
+                            s -> s.hits.sum() + s.misses.sum(), s -> s.nanos.doubleValue(), TimeUnit.NANOSECONDS)
+                    .tag("layer", l)
+                    .register(Metrics.globalRegistry);
+            return stats;
+        });
+    }
+
+    @Override
+    public @Nullable ResolvedPom getResolvedDependencyPom(ResolvedGroupArtifactVersion dependency) {
+        long start = System.nanoTime();
+        return stats.record(start, delegate.getResolvedDependencyPom(dependency));
+    }
+
+    @Override
+    public void putResolvedDependencyPom(ResolvedGroupArtifactVersion dependency, ResolvedPom resolved) {
+        delegate.putResolvedDependencyPom(dependency, resolved);
+    }
+
+    @Override
+    public @Nullable Optional<MavenMetadata> getMavenMetadata(URI repo, GroupArtifactVersion gav) {
+        long start = System.nanoTime();
+        return stats.record(start, delegate.getMavenMetadata(repo, gav));
+    }
+
+    @Override
+    public void putMavenMetadata(URI repo, GroupArtifactVersion gav, @Nullable MavenMetadata metadata) {
+        delegate.putMavenMetadata(repo, gav, metadata);
+    }
+
+    @Override
+    public @Nullable Optional<Pom> getPom(ResolvedGroupArtifactVersion gav) throws MavenDownloadingException {
+        long start = System.nanoTime();
+        return stats.record(start, delegate.getPom(gav));
+    }
+
+    @Override
+    public void putPom(ResolvedGroupArtifactVersion gav, @Nullable Pom pom) {
+        delegate.putPom(gav, pom);
+    }
+
+    @Override
+    public @Nullable Optional<MavenRepository> getNormalizedRepository(MavenRepository repository) {
+        long start = System.nanoTime();
+        return stats.record(start, delegate.getNormalizedRepository(repository));
+    }
+
+    @Override
+    public void putNormalizedRepository(MavenRepository repository, MavenRepository normalized) {
+        delegate.putNormalizedRepository(repository, normalized);
+    }
+
+    static class Stats {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+
+        private <T> @Nullable T record(long start, @Nullable T value) {
+            nanos.add(System.nanoTime() - start);
+            (value == null ? misses : hits).increment();
+            return value;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.apache.maven.project.MavenProject;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Selects reactor modules by {@code groupId:artifactId} globs, where {@code *} matches any number of
+ * characters and {@code ?} exactly one. A glob without a colon is matched against the artifactId alone.
+ * A module is selected when it matches any include (or there are none) and no exclude.
+ */
+class ModuleFilter implements Predicate<MavenProject> {
+    private final List<Pattern> includes;
+    private final List<Pattern> excludes;
+
+    ModuleFilter(Collection<String> includes, Collection<String> excludes) {
+        this.includes = includes.stream().map(ModuleFilter::toPattern).collect(toList());
+        this.excludes = excludes.stream().map(ModuleFilter::toPattern).collect(toList());
+    }
+
+    boolean isEmpty() {
+        return includes.isEmpty() && excludes.isEmpty();
+    }
+
+    @Override
+    public boolean test(MavenProject project) {
+        String coordinates = project.getGroupId() + ':' + project.getArtifactId();
+        return (includes.isEmpty() || matches(includes, coordinates)) && !matches(excludes, coordinates);
+    }
+
+    private static boolean matches(List<Pattern> patterns, String coordinates) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(coordinates).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Pattern toPattern(String glob) {
+        StringBuilder regex = new StringBuilder(glob.indexOf(':') < 0 ? "[^:]*:" : "");
+        StringBuilder literal = new StringBuilder();
+        for (char c : glob.trim().toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.openrewrite.ipc.http.HttpSender;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers, across runs, the repository hosts that could not be connected to and the artifacts repositories
+ * answered {@code 404} for, so that POM downloads skip them until their entries expire rather than paying for the same
+ * timeouts and round trips again. Snapshots are never remembered as missing, as they may be deployed any time.
+ * Failures once connected, such as read timeouts, TLS errors and resets, are taken to be transient and not
+ * remembered, so that one failed download does not keep a host from being used.
+ */
+class NegativeResolutionCache {
+    private static final String MISSING = "missing.";
+    private static final String UNREACHABLE = "unreachable.";
+
+    private final Path file;
+    private final Duration missingTtl;
+    private final Duration unreachableTtl;
+    private final Map<String, Long> expiries = new ConcurrentHashMap<>();
+    private final AtomicInteger skippedMissing = new AtomicInteger();
+    private final AtomicInteger skippedUnreachable = new AtomicInteger();
+
+    private NegativeResolutionCache(Path file, Duration missingTtl, Duration unreachableTtl) {
+        this.file = file;
+        this.missingTtl = missingTtl;
+        this.unreachableTtl = unreachableTtl;
+    }
+
+    /**
+     * @param file The file the cache is persisted to. Unreadable entries in it are ignored.
+     */
+    static NegativeResolutionCache load(Path file, Duration missingTtl, Duration unreachableTtl) {
+        NegativeResolutionCache cache = new NegativeResolutionCache(file, missingTtl, unreachableTtl);
+        if (Files.isRegularFile(file)) {
+            Properties properties = new Properties();
+            try (InputStream is = Files.newInputStream(file)) {
+                properties.load(is);
+            } catch (IOException | IllegalArgumentException e) {
+                return cache;
+            }
+            long now = System.currentTimeMillis();
+            for (String key : properties.stringPropertyNames()) {
+                try {
+                    long expiry = Long.parseLong(properties.getProperty(key));
+                    if (expiry > now) {
+                        cache.expiries.put(key, expiry);
+                    }
+                } catch (NumberFormatException ignored) {
+                    // not one of ours
+                }
+            }
+        }
+        return cache;
+    }
+
+    void save() throws IOException {
+        Properties properties = new Properties();
+        long now = System.currentTimeMillis();
+        expiries.forEach((key, expiry) -> {
+            if (expiry > now) {
+                properties.setProperty(key, Long.toString(expiry));
+            }
+        });
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try (OutputStream os = Files.newOutputStream(tmp)) {
+            properties.store(os, "Unreachable repositories and missing artifacts, with their expiry in epoch millis");
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    int getSkippedMissing() {
+        return skippedMissing.get();
+    }
+
+    int getSkippedUnreachable() {
+        return skippedUnreachable.get();
+    }
+
+    HttpSender wrap(HttpSender delegate) {
+        return new Sender(delegate);
+    }
+
+    private boolean isValid(String key) {
+        Long expiry = expiries.get(key);
+        return expiry != null && expiry > System.currentTimeMillis();
+    }
+
+    private void remember(String key, Duration ttl) {
+        expiries.put(key, System.currentTimeMillis() + ttl.toMillis());
+    }
+
+    /**
+     * Whether {@code failure} is one to connect to the host, rather than one of a request once connected.
+     */
+    static boolean isUnreachable(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof ConnectException || t instanceof UnknownHostException || t instanceof NoRouteToHostException) {
+                return true;
+            }
+            if (t instanceof SocketTimeoutException && t.getMessage() != null &&
+                t.getMessage().toLowerCase(Locale.ROOT).contains("connect timed out")) {
+                return true;
+            }
+            // java.net.http.HttpConnectTimeoutException, which is not available on Java 8
+            if ("HttpConnectTimeoutException".equals(t.getClass().getSimpleName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String host(URL url) {
+        return url.getProtocol() + "://" + url.getHost() + ':' + (url.getPort() == -1 ? url.getDefaultPort() : url.getPort());
+    }
+
+    class Sender implements HttpSender {
+        private final HttpSender delegate;
+
+        private Sender(HttpSender delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Response send(Request request) {
+            String host = UNREACHABLE + host(request.getUrl());
+            if (isValid(host)) {
+                skippedUnreachable.incrementAndGet();
+                throw new UncheckedIOException(new ConnectException(
+                        "Skipped " + request.getUrl() + ", its host was unreachable until at least " +
+                        Instant.ofEpochMilli(expiries.getOrDefault(host, 0L))));
+            }
+            boolean release = request.getMethod() == Method.GET && !request.getUrl().getPath().contains("-SNAPSHOT");
+            String missing = MISSING + request.getUrl();
+            if (release && isValid(missing)) {
+                skippedMissing.incrementAndGet();
+                return new Response(404, new ByteArrayInputStream(new byte[0]), () -> {
+                });
+            }
+
+            Response response;
+            try {
+                response = delegate.send(request);
+            } catch (UncheckedIOException e) {
+                if (isUnreachable(e)) {
+                    remember(host, unreachableTtl);
+                }
+                throw e;
+            }
+            if (release && response.getCode() == 404) {
+                remember(missing, missingTtl);
+            }
+            return response;
+        }
+    }
+}
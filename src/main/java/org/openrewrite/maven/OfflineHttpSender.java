@@ -0,0 +1,33 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.openrewrite.ipc.http.HttpSender;
+
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+
+/**
+ * Fails every request right away, the way an unreachable repository would, so that when Maven runs offline POMs
+ * are resolved from the local repository and the POM cache only, without waiting for connection timeouts.
+ */
+class OfflineHttpSender implements HttpSender {
+
+    @Override
+    public Response send(Request request) {
+        throw new UncheckedIOException(new ConnectException("Maven is offline, not downloading " + request.getUrl()));
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.FileAttributes;
+import org.openrewrite.ParseExceptionResult;
+import org.openrewrite.Parser;
+import org.openrewrite.SourceFile;
+import org.openrewrite.marker.Markers;
+import org.openrewrite.quark.Quark;
+import org.openrewrite.tree.ParseError;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.openrewrite.Tree.randomId;
+
+/**
+ * A persistent record of source files that a parser failed to parse, keyed by the parser, its version
+ * and the SHA-256 of the file contents. A file whose exact contents already failed with the same
+ * parser version is turned into a {@link Quark} carrying the original {@link ParseExceptionResult}
+ * instead of being parsed again.
+ * <p>
+ * The cache is an append-only, tab-separated file. Only files whose size matches a recorded failure
+ * are hashed, so an empty or small cache adds no I/O to a run.
+ */
+class ParseFailureCache {
+    static final String FILE_NAME = "parse-failures.tsv";
+
+    private final Path cacheFile;
+    private final boolean reparseKnownFailures;
+    private final Map<String, Failure> failures = new ConcurrentHashMap<>();
+    private final Set<Long> failedSizes = ConcurrentHashMap.newKeySet();
+
+    ParseFailureCache(Path cacheFile, boolean reparseKnownFailures) {
+        this.cacheFile = cacheFile;
+        this.reparseKnownFailures = reparseKnownFailures;
+        load();
+    }
+
+    /**
+     * @return A {@link Quark} standing in for a file that is known to fail parsing with this parser,
+     * or {@code null} if the file should be parsed.
+     */
+    @Nullable
+    SourceFile knownFailure(Parser parser, Path path, Path relativeTo) {
+        if (reparseKnownFailures || failures.isEmpty()) {
+            return null;
+        }
+        try {
+            long size = Files.size(path);
+            if (!failedSizes.contains(size)) {
+                return null;
+            }
+            Failure failure = failures.get(key(parser, size, Files.readAllBytes(path)));
+            if (failure == null) {
+                return null;
+            }
+            return new Quark(randomId(), relativeTo.relativize(path), Markers.build(Collections.singletonList(
+                    new ParseExceptionResult(randomId(), failure.parserType, failure.exceptionType,
+                            "Skipped parsing a file that previously failed to parse with this parser version; " +
+                            "run with -Drewrite.reparseKnownFailures=true to retry.\n" + failure.message, null))),
+                    null, FileAttributes.fromPath(path));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Remember the source file if it is the result of a failed parse.
+     */
+    SourceFile record(Parser parser, SourceFile sourceFile, Path relativeTo) {
+        if (!(sourceFile instanceof ParseError)) {
+            return sourceFile;
+        }
+        Optional<ParseExceptionResult> result = sourceFile.getMarkers().findFirst(ParseExceptionResult.class);
+        if (!result.isPresent()) {
+            return sourceFile;
+        }
+        try {
+            byte[] content = Files.readAllBytes(relativeTo.resolve(sourceFile.getSourcePath()));
+            String key = key(parser, content.length, content);
+            Failure failure = new Failure(result.get().getParserType(), result.get().getExceptionType(), result.get().getMessage());
+            if (failures.putIfAbsent(key, failure) == null) {
+                failedSizes.add((long) content.length);
+                append(key, failure);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            // the cache is an optimization only, failing to update it must not fail the build
+        }
+        return sourceFile;
+    }
+
+    private void load() {
+        if (!Files.exists(cacheFile)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(cacheFile, StandardCharsets.UTF_8)) {
+                String[] columns = line.split("\t", -1);
+                if (columns.length != 4) {
+                    continue;
+                }
+                failures.put(columns[0], new Failure(columns[1], columns[2],
+                        new String(Base64.getDecoder().decode(columns[3]), StandardCharsets.UTF_8)));
+                failedSizes.add(Long.parseLong(columns[0].substring(columns[0].lastIndexOf('|') + 1, columns[0].lastIndexOf(':'))));
+            }
+        } catch (IOException | RuntimeException e) {
+            // a corrupt cache file is treated as empty and gets rebuilt as failures are encountered
+            failures.clear();
+            failedSizes.clear();
+        }
+    }
+
+    private synchronized void append(String key, Failure failure) throws IOException {
+        Files.createDirectories(cacheFile.getParent());
+        String line = key + '\t' + failure.parserType + '\t' + failure.exceptionType + '\t' +
+                      Base64.getEncoder().encodeToString(failure.message.getBytes(StandardCharsets.UTF_8)) + '\n';
+        Files.write(cacheFile, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static String key(Parser parser, long size, byte[] content) {
+        // OmniParser delegates to parsers from other artifacts, so rewrite-core's version is part of the key too
+        return parser.getClass().getName() + '@' + version(parser.getClass()) + '@' + version(Parser.class) +
+               '|' + size + ':' + Sha256.hex(Sha256.digest(content));
+    }
+
+    private static String version(Class<?> clazz) {
+        Package pkg = clazz.getPackage();
+        String version = pkg == null ? null : pkg.getImplementationVersion();
+        return version == null ? "unknown" : version;
+    }
+
+    private static class Failure {
+        final String parserType;
+        final String exceptionType;
+        final String message;
+
+        Failure(String parserType, String exceptionType, String message) {
+            this.parserType = parserType;
+            this.exceptionType = exceptionType;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.RepositorySystemSession;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.SourceFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The POMs parsed during a Maven session, by path, with a digest of the contents they were parsed from. With
+ * {@code runPerSubmodule}, every module's execution parses the POMs of the modules it inherits from, and through
+ * them most of the reactor: the executions after the first reuse the documents parsed by an earlier one instead,
+ * for as long as none of the POMs they would parse changed since, as a recipe run on an earlier module may do.
+ * <p>
+ * The store is kept in the data of the session's repository session, so that it lives exactly as long as the build.
+ */
+class ParsedPomStore {
+    private final Map<Path, Entry> documents = new ConcurrentHashMap<>();
+
+    /**
+     * The store for the POMs parsed relative to {@code baseDir} in {@code session}.
+     */
+    static ParsedPomStore forSession(MavenSession session, Path baseDir) {
+        RepositorySystemSession repositorySession = session.getRepositorySession();
+        if (repositorySession == null) {
+            return new ParsedPomStore();
+        }
+        String key = ParsedPomStore.class.getName() + ':' + baseDir;
+        synchronized (ParsedPomStore.class) {
+            Object store = repositorySession.getData().get(key);
+            if (!(store instanceof ParsedPomStore)) {
+                store = new ParsedPomStore();
+                repositorySession.getData().set(key, store);
+            }
+            return (ParsedPomStore) store;
+        }
+    }
+
+    /**
+     * @return The documents parsed from {@code poms}, or {@code null} when one of them was not parsed yet or has
+     * changed since.
+     */
+    @Nullable
+    List<SourceFile> get(Collection<Path> poms) {
+        List<SourceFile> parsed = new ArrayList<>(poms.size());
+        for (Path pom : poms) {
+            Entry entry = documents.get(pom);
+            if (entry == null || !Arrays.equals(entry.digest, digest(pom))) {
+                return null;
+            }
+            parsed.add(entry.document);
+        }
+        return parsed;
+    }
+
+    /**
+     * Remember the {@code documents} parsed relative to {@code baseDir}, with the current contents of their POMs.
+     */
+    void put(Path baseDir, List<SourceFile> documents) {
+        for (SourceFile document : documents) {
+            Path pom = baseDir.resolve(document.getSourcePath());
+            byte[] digest = digest(pom);
+            if (digest != null) {
+                this.documents.put(pom, new Entry(digest, document));
+            }
+        }
+    }
+
+    private static @Nullable byte[] digest(Path pom) {
+        try {
+            return Sha256.digest(Files.readAllBytes(pom));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static class Entry {
+        final byte[] digest;
+        final SourceFile document;
+
+        Entry(byte[] digest, SourceFile document) {
+            this.digest = digest;
+            this.document = document;
+        }
+    }
+}
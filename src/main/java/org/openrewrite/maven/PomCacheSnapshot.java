@@ -0,0 +1,264 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.jspecify.annotations.Nullable;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Copies the persistent POM caches under a cache workspace to and from a single snapshot file, so that CI agents
+ * that start without a cache can be seeded with one in a single download.
+ * <p>
+ * A snapshot is a gzip stream of one section per cache found in the workspace, each a sequence of length-prefixed
+ * key and value records, followed by the SHA-256 digest of all that precedes it. Entries are copied as the bytes
+ * the caches store them as, so a snapshot only makes sense to caches written by the same version of rewrite; each
+ * cache discards entries of another model version as it does for its own. A snapshot is verified in full before
+ * anything is imported from it, so that a truncated or corrupted download leaves the caches untouched.
+ */
+class PomCacheSnapshot {
+    private static final int MAGIC = 0x52575053;
+    private static final int VERSION = 1;
+    private static final int DIGEST_LENGTH = 32;
+    private static final String MAPPED_LOG = "mapped-log";
+
+    /**
+     * The caches a snapshot may contain, by name, with the directory they are kept in under the workspace.
+     */
+    private static final Map<String, String> STORES = new LinkedHashMap<>();
+
+    static {
+        STORES.put("rocksdb", ".rewrite-cache");
+        STORES.put("tuned-rocksdb", ".rewrite-pom-cache");
+        STORES.put(MAPPED_LOG, ".rewrite-cache-log");
+    }
+
+    private PomCacheSnapshot() {
+    }
+
+    /**
+     * Write the caches under {@code workspace} to {@code snapshot}, replacing it once complete.
+     *
+     * @return The number of entries written.
+     */
+    static int export(Path workspace, Path snapshot) throws IOException {
+        Path parent = snapshot.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, snapshot.getFileName().toString(), ".tmp");
+        int entries = 0;
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp);
+                 GZIPOutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(os))) {
+                MessageDigest digest = Sha256.newDigest();
+                DataOutputStream out = new DataOutputStream(new DigestOutputStream(gzip, digest));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                for (Map.Entry<String, String> store : STORES.entrySet()) {
+                    Path directory = workspace.resolve(store.getValue());
+                    boolean mappedLog = MAPPED_LOG.equals(store.getKey());
+                    if (mappedLog ? Files.isRegularFile(directory.resolve("poms.log")) : isRocksdb(directory)) {
+                        out.writeUTF(store.getKey());
+                        entries += mappedLog ? exportMappedLog(directory, out) : exportRocksdb(directory, out);
+                        out.writeInt(-1);
+                    }
+                }
+                out.writeUTF("");
+                out.flush();
+                gzip.write(digest.digest());
+            }
+            Files.move(tmp, snapshot, REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return entries;
+    }
+
+    /**
+     * Verify {@code snapshot} and then write its entries to the caches under {@code workspace}, which must not be
+     * in use by another process.
+     *
+     * @return The number of entries imported.
+     */
+    static int importInto(Path workspace, Path snapshot) throws IOException {
+        read(snapshot, null);
+        return read(snapshot, workspace);
+    }
+
+    /**
+     * @param workspace Where to import the snapshot to, or {@code null} to only verify it.
+     */
+    private static int read(Path snapshot, @Nullable Path workspace) throws IOException {
+        int entries = 0;
+        try (InputStream is = Files.newInputStream(snapshot);
+             GZIPInputStream gzip = new GZIPInputStream(new BufferedInputStream(is))) {
+            MessageDigest digest = Sha256.newDigest();
+            DataInputStream in = new DataInputStream(new DigestInputStream(gzip, digest));
+            if (in.readInt() != MAGIC) {
+                throw new IOException(snapshot + " is not a POM cache snapshot");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(snapshot + " is a POM cache snapshot of unsupported version " + version);
+            }
+            for (String store = in.readUTF(); !store.isEmpty(); store = in.readUTF()) {
+                String directory = STORES.get(store);
+                if (directory == null) {
+                    throw new IOException(snapshot + " contains an unknown POM cache '" + store + "'");
+                }
+                if (workspace == null) {
+                    entries += readSection(in, (key, value) -> {
+                    });
+                } else if (MAPPED_LOG.equals(store)) {
+                    entries += importMappedLog(workspace.resolve(directory), in);
+                } else {
+                    entries += importRocksdb(workspace.resolve(directory), in);
+                }
+            }
+            byte[] expected = digest.digest();
+            byte[] actual = new byte[DIGEST_LENGTH];
+            in.readFully(actual);
+            if (!MessageDigest.isEqual(expected, actual) || gzip.read() != -1) {
+                throw new IOException(snapshot + " is corrupted, its checksum does not match its contents");
+            }
+        } catch (EOFException e) {
+            throw new IOException(snapshot + " is truncated", e);
+        }
+        return entries;
+    }
+
+    private static int exportRocksdb(Path directory, DataOutputStream out) throws IOException {
+        RocksDB.loadLibrary();
+        int entries = 0;
+        try (Options options = new Options();
+             RocksDB database = RocksDB.openReadOnly(options, directory.toString());
+             RocksIterator iterator = database.newIterator()) {
+            for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                writeEntry(out, iterator.key(), iterator.value());
+                entries++;
+            }
+        } catch (RocksDBException e) {
+            throw new IOException("Unable to read the POM cache at " + directory, e);
+        }
+        return entries;
+    }
+
+    private static int importRocksdb(Path directory, DataInputStream in) throws IOException {
+        RocksDB.loadLibrary();
+        Files.createDirectories(directory);
+        try (Options options = new Options().setCreateIfMissing(true);
+             RocksDB database = RocksDB.open(options, directory.toString())) {
+            return readSection(in, (key, value) -> {
+                try {
+                    database.put(key, value == null ? new byte[0] : value);
+                } catch (RocksDBException e) {
+                    throw new IOException("Unable to write to the POM cache at " + directory, e);
+                }
+            });
+        } catch (RocksDBException e) {
+            throw new IOException("Unable to open the POM cache at " + directory + ", is it in use?", e);
+        }
+    }
+
+    private static int exportMappedLog(Path directory, DataOutputStream out) throws IOException {
+        int[] entries = new int[1];
+        try (MappedLogMavenPomCache cache = new MappedLogMavenPomCache(directory)) {
+            cache.forEachEntry((key, value) -> {
+                try {
+                    writeEntry(out, key.getBytes(UTF_8), value);
+                    entries[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return entries[0];
+    }
+
+    private static int importMappedLog(Path directory, DataInputStream in) throws IOException {
+        try (MappedLogMavenPomCache cache = new MappedLogMavenPomCache(directory)) {
+            return readSection(in, (key, value) -> cache.putEntry(new String(key, UTF_8), value));
+        }
+    }
+
+    private static void writeEntry(DataOutputStream out, byte[] key, @Nullable byte[] value) throws IOException {
+        out.writeInt(key.length);
+        out.write(key);
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(value.length);
+            out.write(value);
+        }
+    }
+
+    private static int readSection(DataInputStream in, EntryConsumer consumer) throws IOException {
+        int entries = 0;
+        for (int keyLength = in.readInt(); keyLength != -1; keyLength = in.readInt()) {
+            byte[] key = readBytes(in, keyLength);
+            int valueLength = in.readInt();
+            consumer.accept(key, valueLength == -1 ? null : readBytes(in, valueLength));
+            entries++;
+        }
+        return entries;
+    }
+
+    private static byte[] readBytes(DataInputStream in, int length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Invalid record length " + length + " in the POM cache snapshot");
+        }
+        // read in chunks, so a corrupted length fails at the end of the stream rather than allocating it upfront
+        byte[] bytes = new byte[Math.min(length, 1 << 16)];
+        int read = 0;
+        while (read < length) {
+            if (read == bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.min(length, bytes.length * 2));
+            }
+            int n = in.read(bytes, read, bytes.length - read);
+            if (n < 0) {
+                throw new EOFException();
+            }
+            read += n;
+        }
+        return bytes;
+    }
+
+    private static boolean isRocksdb(Path directory) {
+        return Files.isRegularFile(directory.resolve("CURRENT"));
+    }
+
+    private interface EntryConsumer {
+        void accept(byte[] key, @Nullable byte[] value) throws IOException;
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.ipc.http.HttpSender;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounds the number of requests in flight per host, and retries idempotent requests that fail with an I/O error,
+ * {@code 429 Too Many Requests} or a {@code 502}, {@code 503} or {@code 504} with exponential backoff, honoring
+ * {@code Retry-After}.
+ * <p>
+ * Response bodies of a known length of up to {@link #MAX_BUFFERED_BODY} bytes, such as POMs and metadata, are read
+ * in full before the request's slot is released. This is what lets {@link java.net.HttpURLConnection} return the
+ * connection to its keep-alive cache, so that subsequent requests to the same host reuse it instead of opening a new
+ * one. Other bodies, such as the artifacts recipes download, are streamed, and the slot is released once the body
+ * has been read to its end, or the body or response is closed, whichever comes first.
+ * <p>
+ * A request that waits longer than the permit timeout for a slot fails with an I/O error rather than waiting
+ * forever on a slot that a caller never gave back.
+ */
+class PooledHttpSender implements HttpSender {
+    static final long MAX_BUFFERED_BODY = 1024 * 1024;
+
+    static final Duration DEFAULT_PERMIT_TIMEOUT = Duration.ofMinutes(1);
+
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(10);
+
+    private final HttpSender delegate;
+    private final int maxRequestsPerHost;
+    private final int retries;
+    private final Duration backoff;
+    private final Duration permitTimeout;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    PooledHttpSender(HttpSender delegate, int maxRequestsPerHost, int retries, Duration backoff) {
+        this(delegate, maxRequestsPerHost, retries, backoff, DEFAULT_PERMIT_TIMEOUT);
+    }
+
+    PooledHttpSender(HttpSender delegate, int maxRequestsPerHost, int retries, Duration backoff, Duration permitTimeout) {
+        this.delegate = delegate;
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        this.retries = retries;
+        this.backoff = backoff;
+        this.permitTimeout = permitTimeout;
+    }
+
+    @Override
+    public Response send(Request request) {
+        boolean idempotent = request.getMethod() == Method.GET || request.getMethod() == Method.HEAD ||
+                             request.getMethod() == Method.OPTIONS;
+        for (int attempt = 0; ; attempt++) {
+            boolean lastAttempt = !idempotent || attempt >= retries;
+            Response response;
+            try {
+                response = sendWithPermit(request);
+            } catch (UncheckedIOException e) {
+                if (lastAttempt) {
+                    throw e;
+                }
+                sleep(backoff(attempt, null));
+                continue;
+            }
+            if (lastAttempt || !isRetryable(response.getCode())) {
+                return response;
+            }
+            Duration wait = backoff(attempt, retryAfter(response));
+            response.close();
+            sleep(wait);
+        }
+    }
+
+    private Response sendWithPermit(Request request) {
+        Semaphore permits = hostPermits.computeIfAbsent(hostKey(request.getUrl()), host -> new Semaphore(maxRequestsPerHost, true));
+        try {
+            if (!permits.tryAcquire(permitTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new UncheckedIOException(new IOException("Timed out after " + permitTimeout.toMillis() +
+                                                               "ms waiting for a free connection to send " + request.getUrl()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to send " + request.getUrl(), e);
+        }
+        Response response;
+        try {
+            response = delegate.send(request);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        long length = contentLength(response);
+        if (response.getBody() == null || (length >= 0 && length <= MAX_BUFFERED_BODY)) {
+            try {
+                byte[] body = readFully(response.getBody());
+                return new Response(response.getCode(), new ByteArrayInputStream(body), response.getHeaders(), () -> {
+                });
+            } finally {
+                response.close();
+                permits.release();
+            }
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+        return new Response(response.getCode(), new ReleasingInputStream(response.getBody(), release), response.getHeaders(), () -> {
+            try {
+                response.close();
+            } finally {
+                release.run();
+            }
+        });
+    }
+
+    /**
+     * Releases the request's slot once the body has been read to its end or is closed, as callers such as
+     * {@link Response#getBodyAsBytes()} close the body but not the response.
+     */
+    private static class ReleasingInputStream extends FilterInputStream {
+        private final Runnable release;
+
+        ReleasingInputStream(InputStream body, Runnable release) {
+            super(body);
+            this.release = release;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                release.run();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n < 0) {
+                release.run();
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                release.run();
+            }
+        }
+    }
+
+    private static long contentLength(Response response) {
+        for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+            if ("Content-Length".equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                try {
+                    return Long.parseLong(header.getValue().get(0).trim());
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] readFully(@Nullable InputStream body) {
+        if (body == null) {
+            return new byte[0];
+        }
+        try {
+            byte[] buffer = new byte[8192];
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int n;
+            while ((n = body.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isRetryable(int code) {
+        return code == 429 || code == 502 || code == 503 || code == 504;
+    }
+
+    private Duration backoff(int attempt, @Nullable Duration retryAfter) {
+        Duration exponential = backoff.multipliedBy(1L << Math.min(attempt, 16));
+        Duration wait = retryAfter != null && retryAfter.compareTo(exponential) > 0 ? retryAfter : exponential;
+        return wait.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : wait;
+    }
+
+    private static @Nullable Duration retryAfter(Response response) {
+        for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+            if ("Retry-After".equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                try {
+                    return Duration.ofSeconds(Long.parseLong(header.getValue().get(0).trim()));
+                } catch (NumberFormatException e) {
+                    // an HTTP date, fall back to the exponential backoff
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off", e);
+        }
+    }
+
+    private static String hostKey(URL url) {
+        return url.getProtocol() + "://" + url.getHost() + ':' + (url.getPort() == -1 ? url.getDefaultPort() : url.getPort());
+    }
+}
@@ -0,0 +1,439 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.aether.DefaultSessionData;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.maven.cache.MavenPomCache;
+import org.openrewrite.maven.tree.*;
+import org.rocksdb.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A RocksDB backed POM cache with a tunable profile: compression codec, block cache size and bloom filters, TTLs
+ * for snapshot POMs and metadata, which may change in the repositories, and a maximum size, which the cache is
+ * trimmed down to on a background thread when it is opened over it, evicting the entries written longest ago first.
+ * <p>
+ * Unlike rewrite's {@link org.openrewrite.maven.cache.RocksdbMavenPomCache}, which keeps its database open in a
+ * static field for the life of the JVM, this cache is opened once per Maven session, shared by the executions of
+ * the session through the data of its repository session, and {@link #close() closed} once the last of them
+ * {@link #release(ExecutionContext, boolean) releases} it at the end of the session.
+ * Release POMs are kept until the cache is trimmed, missing ones are remembered like any other entry.
+ */
+class ProfiledRocksdbMavenPomCache implements MavenPomCache, AutoCloseable {
+    private static final String CONTEXT_KEY = ProfiledRocksdbMavenPomCache.class.getName();
+    private static final Map<Path, ProfiledRocksdbMavenPomCache> OPEN = new HashMap<>();
+    private static final byte[] MODEL_VERSION_KEY = "model-version".getBytes(UTF_8);
+
+    private static final byte RELEASE = 0;
+    private static final byte SNAPSHOT = 1;
+    private static final byte METADATA = 2;
+
+    private static final int EVICTION_BATCH = 10_000;
+
+    static {
+        RocksDB.loadLibrary();
+    }
+
+    private final Profile profile;
+    private final Log logger;
+    private final Options options;
+    private final LRUCache blockCache;
+    private final BloomFilter bloomFilter;
+    private final RocksDB database;
+    private final CompactRangeOptions compaction = new CompactRangeOptions();
+    private final Thread trimmer;
+    private volatile boolean closing;
+    private int references;
+    private boolean sessionEnding;
+
+    ProfiledRocksdbMavenPomCache(Path cacheFolder, Profile profile, Log logger) throws IOException, RocksDBException {
+        this.profile = profile;
+        this.logger = logger;
+        Files.createDirectories(cacheFolder);
+        blockCache = new LRUCache(profile.blockCacheSizeBytes);
+        bloomFilter = new BloomFilter(profile.bloomFilterBitsPerKey);
+        options = new Options()
+                .setCreateIfMissing(true)
+                .setCompressionType(profile.compression)
+                .setLevelCompactionDynamicLevelBytes(true)
+                .setMaxBackgroundJobs(2)
+                .setTableFormatConfig(new BlockBasedTableConfig()
+                        .setBlockCache(blockCache)
+                        .setFilterPolicy(bloomFilter));
+        try {
+            database = RocksDB.open(options, cacheFolder.toString());
+        } catch (RocksDBException e) {
+            options.close();
+            bloomFilter.close();
+            blockCache.close();
+            throw e;
+        }
+        byte[] modelVersion = ByteBuffer.allocate(4).putInt(Pom.getModelVersion()).array();
+        if (!Arrays.equals(modelVersion, database.get(MODEL_VERSION_KEY))) {
+            deleteAll(entry -> true);
+            database.put(MODEL_VERSION_KEY, modelVersion);
+        }
+        trimmer = new Thread(this::trim, "rewrite-pom-cache-compaction");
+        trimmer.setDaemon(true);
+        trimmer.start();
+    }
+
+    /**
+     * The cache in {@code cacheFolder} for {@code session}, opened by the first execution of the session to ask for
+     * it and shared with the others, on behalf of the execution {@code ctx} belongs to, which is expected to
+     * {@link #release(ExecutionContext, boolean) release} it when done.
+     */
+    static ProfiledRocksdbMavenPomCache acquire(MavenSession session, Path cacheFolder, Profile profile, Log logger,
+                                                ExecutionContext ctx) throws IOException, RocksDBException {
+        RepositorySystemSession repositorySession = session.getRepositorySession();
+        return acquire(repositorySession == null ? new DefaultSessionData() : repositorySession.getData(),
+                cacheFolder, profile, logger, ctx);
+    }
+
+    static ProfiledRocksdbMavenPomCache acquire(SessionData sessionData, Path cacheFolder, Profile profile, Log logger,
+                                                ExecutionContext ctx) throws IOException, RocksDBException {
+        ProfiledRocksdbMavenPomCache held = ctx.getMessage(CONTEXT_KEY);
+        if (held != null) {
+            return held;
+        }
+        Path folder = cacheFolder.toAbsolutePath().normalize();
+        String key = CONTEXT_KEY + ':' + folder;
+        synchronized (ProfiledRocksdbMavenPomCache.class) {
+            Object shared = sessionData.get(key);
+            ProfiledRocksdbMavenPomCache cache;
+            if (shared instanceof ProfiledRocksdbMavenPomCache && !((ProfiledRocksdbMavenPomCache) shared).closing) {
+                cache = (ProfiledRocksdbMavenPomCache) shared;
+            } else {
+                // An earlier session in this JVM (mvnd) may have left it open, when some of its projects did not run
+                // rewrite; it holds RocksDB's lock on the folder until closed
+                ProfiledRocksdbMavenPomCache leftOpen = OPEN.get(folder);
+                if (leftOpen != null && leftOpen.references == 0) {
+                    OPEN.remove(folder);
+                    leftOpen.close();
+                }
+                cache = new ProfiledRocksdbMavenPomCache(folder, profile, logger);
+                sessionData.set(key, cache);
+                OPEN.put(folder, cache);
+            }
+            cache.references++;
+            ctx.putMessage(CONTEXT_KEY, cache);
+            return cache;
+        }
+    }
+
+    /**
+     * Release the cache held by the execution {@code ctx} belongs to, if any. It is closed once no execution holds
+     * it any longer, after one of them found the session {@code ending}, its last project having started.
+     */
+    static void release(ExecutionContext ctx, boolean sessionEnding) {
+        ProfiledRocksdbMavenPomCache cache = ctx.pollMessage(CONTEXT_KEY);
+        if (cache != null) {
+            synchronized (ProfiledRocksdbMavenPomCache.class) {
+                cache.references--;
+                cache.sessionEnding |= sessionEnding;
+                if (cache.references == 0 && cache.sessionEnding) {
+                    OPEN.values().remove(cache);
+                    cache.close();
+                }
+            }
+        }
+    }
+
+    @Override
+    public @Nullable ResolvedPom getResolvedDependencyPom(ResolvedGroupArtifactVersion dependency) {
+        // resolved POMs depend on the POM that resolved them, they are only worth caching in memory
+        return null;
+    }
+
+    @Override
+    public void putResolvedDependencyPom(ResolvedGroupArtifactVersion dependency, ResolvedPom resolved) {
+    }
+
+    @Override
+    public @Nullable Optional<MavenMetadata> getMavenMetadata(URI repo, GroupArtifactVersion gav) {
+        return get("metadata|" + repo + '|' + gav, MavenMetadata.class);
+    }
+
+    @Override
+    public void putMavenMetadata(URI repo, GroupArtifactVersion gav, @Nullable MavenMetadata metadata) {
+        put("metadata|" + repo + '|' + gav, METADATA, metadata);
+    }
+
+    @Override
+    public @Nullable Optional<Pom> getPom(ResolvedGroupArtifactVersion gav) {
+        return get(pomKey(gav), Pom.class);
+    }
+
+    @Override
+    public void putPom(ResolvedGroupArtifactVersion gav, @Nullable Pom pom) {
+        put(pomKey(gav), gav.getVersion().endsWith("-SNAPSHOT") ? SNAPSHOT : RELEASE, pom);
+    }
+
+    @Override
+    public @Nullable Optional<MavenRepository> getNormalizedRepository(MavenRepository repository) {
+        // whether a repository is reachable is not worth remembering across runs, it is cheap to find out
+        return null;
+    }
+
+    @Override
+    public void putNormalizedRepository(MavenRepository repository, MavenRepository normalized) {
+    }
+
+    @Override
+    public void close() {
+        if (closing) {
+            return;
+        }
+        closing = true;
+        // stop a compaction the trimmer may be waiting on, rather than waiting for it to end
+        compaction.setCanceled(true);
+        try {
+            trimmer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        database.close();
+        compaction.close();
+        options.close();
+        bloomFilter.close();
+        blockCache.close();
+    }
+
+    private static String pomKey(ResolvedGroupArtifactVersion gav) {
+        return "pom|" + gav.getRepository() + '|' + gav.getGroupId() + ':' + gav.getArtifactId() + ':' +
+               gav.getVersion() + ':' + gav.getDatedSnapshotVersion();
+    }
+
+    private <T> @Nullable Optional<T> get(String key, Class<T> type) {
+        byte[] keyBytes = key.getBytes(UTF_8);
+        try {
+            byte[] entry = database.get(keyBytes);
+            if (entry == null) {
+                return null;
+            }
+            if (isExpired(entry)) {
+                database.delete(keyBytes);
+                return null;
+            }
+            if (entry.length == 9) {
+                return Optional.empty();
+            }
+            return Optional.of(PomCacheMapper.MAPPER.readValue(entry, 9, entry.length - 9, type));
+        } catch (RocksDBException | IOException e) {
+            logger.debug("Unable to read " + key + " from the POM cache", e);
+            return null;
+        }
+    }
+
+    private void put(String key, byte kind, @Nullable Object value) {
+        try {
+            byte[] payload = value == null ? new byte[0] : PomCacheMapper.MAPPER.writeValueAsBytes(value);
+            database.put(key.getBytes(UTF_8), ByteBuffer.allocate(9 + payload.length)
+                    .putLong(System.currentTimeMillis())
+                    .put(kind)
+                    .put(payload)
+                    .array());
+        } catch (RocksDBException | IOException e) {
+            logger.debug("Unable to write " + key + " to the POM cache", e);
+        }
+    }
+
+    private boolean isExpired(byte[] entry) {
+        if (entry.length < 9) {
+            return true;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(entry);
+        long written = buffer.getLong();
+        byte kind = buffer.get();
+        Duration ttl = kind == SNAPSHOT ? profile.snapshotTtl : kind == METADATA ? profile.metadataTtl : null;
+        return ttl != null && System.currentTimeMillis() - written > ttl.toMillis();
+    }
+
+    /**
+     * When over its maximum size, evict expired entries, and then the entries written longest ago, until what is
+     * left fits, and compact the cache to reclaim their space. What the entries take on disk is estimated from the
+     * size of the cache, so this is repeated a few times if the cache does not fit yet after compacting.
+     * <p>
+     * The entries to evict are found in batches of at most {@link #EVICTION_BATCH} of the oldest, so that trimming
+     * a large cache does not hold all of its keys in memory.
+     */
+    private void trim() {
+        try {
+            for (int round = 0; round < 3 && !closing; round++) {
+                long size = size();
+                if (size <= profile.maxSizeBytes) {
+                    return;
+                }
+                long liveBytes = deleteExpired();
+                if (closing || liveBytes == 0) {
+                    return;
+                }
+                // what the entries take on disk, compressed and with the overhead of the files, relative to their size
+                double ratio = (double) size / liveBytes;
+                while (!closing && liveBytes * ratio > profile.maxSizeBytes) {
+                    List<Entry> oldest = oldestEntries();
+                    if (oldest.isEmpty()) {
+                        break;
+                    }
+                    for (Entry entry : oldest) {
+                        if (closing || liveBytes * ratio <= profile.maxSizeBytes) {
+                            break;
+                        }
+                        database.delete(entry.key);
+                        liveBytes -= entry.bytes;
+                    }
+                }
+                if (!closing) {
+                    database.compactRange(database.getDefaultColumnFamily(), null, null, compaction);
+                }
+            }
+        } catch (RocksDBException e) {
+            if (!closing) {
+                logger.debug("Unable to trim the POM cache", e);
+            }
+        }
+    }
+
+    /**
+     * Delete the entries that expired.
+     *
+     * @return The size of the entries left.
+     */
+    private long deleteExpired() throws RocksDBException {
+        long liveBytes = 0;
+        try (RocksIterator iterator = database.newIterator()) {
+            for (iterator.seekToFirst(); iterator.isValid() && !closing; iterator.next()) {
+                byte[] key = iterator.key();
+                if (!Arrays.equals(MODEL_VERSION_KEY, key)) {
+                    byte[] value = iterator.value();
+                    if (isExpired(value)) {
+                        database.delete(key);
+                    } else {
+                        liveBytes += key.length + value.length;
+                    }
+                }
+            }
+        }
+        return liveBytes;
+    }
+
+    /**
+     * @return Up to {@link #EVICTION_BATCH} of the entries written longest ago, oldest first.
+     */
+    private List<Entry> oldestEntries() {
+        // the newest of the oldest entries found so far is the first to give way to an older one
+        PriorityQueue<Entry> oldest = new PriorityQueue<>(Comparator.comparingLong((Entry entry) -> entry.written).reversed());
+        try (RocksIterator iterator = database.newIterator()) {
+            for (iterator.seekToFirst(); iterator.isValid() && !closing; iterator.next()) {
+                byte[] value = iterator.value();
+                if (value.length < 9) {
+                    continue;
+                }
+                long written = ByteBuffer.wrap(value).getLong();
+                if (oldest.size() < EVICTION_BATCH || written < oldest.peek().written) {
+                    byte[] key = iterator.key();
+                    if (!Arrays.equals(MODEL_VERSION_KEY, key)) {
+                        oldest.add(new Entry(key, written, key.length + value.length));
+                        if (oldest.size() > EVICTION_BATCH) {
+                            oldest.poll();
+                        }
+                    }
+                }
+            }
+        }
+        List<Entry> entries = new ArrayList<>(oldest);
+        entries.sort(Comparator.comparingLong(entry -> entry.written));
+        return entries;
+    }
+
+    private static class Entry {
+        final byte[] key;
+        final long written;
+        final long bytes;
+
+        Entry(byte[] key, long written, long bytes) {
+            this.key = key;
+            this.written = written;
+            this.bytes = bytes;
+        }
+    }
+
+    void awaitTrimmed() throws InterruptedException {
+        trimmer.join();
+    }
+
+    long size() throws RocksDBException {
+        return database.getLongProperty("rocksdb.total-sst-files-size") +
+               database.getLongProperty("rocksdb.cur-size-all-mem-tables");
+    }
+
+    private void deleteAll(EntryFilter filter) throws RocksDBException {
+        try (RocksIterator iterator = database.newIterator()) {
+            for (iterator.seekToFirst(); iterator.isValid() && !closing; iterator.next()) {
+                byte[] key = iterator.key();
+                if (!Arrays.equals(MODEL_VERSION_KEY, key) && filter.test(iterator.value())) {
+                    database.delete(key);
+                }
+            }
+        }
+    }
+
+    private interface EntryFilter {
+        boolean test(byte[] entry);
+    }
+
+    /**
+     * How the cache is tuned.
+     */
+    static class Profile {
+        final CompressionType compression;
+        final long blockCacheSizeBytes;
+        final double bloomFilterBitsPerKey;
+        final Duration snapshotTtl;
+        final Duration metadataTtl;
+        final long maxSizeBytes;
+
+        /**
+         * @param compression One of {@code none}, {@code snappy}, {@code zlib}, {@code lz4}, {@code lz4hc} or
+         *                    {@code zstd}.
+         */
+        Profile(String compression, long blockCacheSizeBytes, double bloomFilterBitsPerKey,
+                Duration snapshotTtl, Duration metadataTtl, long maxSizeBytes) {
+            this.compression = "none".equalsIgnoreCase(compression) ? CompressionType.NO_COMPRESSION :
+                    CompressionType.valueOf(compression.toUpperCase(Locale.ROOT) + "_COMPRESSION");
+            this.blockCacheSizeBytes = blockCacheSizeBytes;
+            this.bloomFilterBitsPerKey = bloomFilterBitsPerKey;
+            this.snapshotTtl = snapshotTtl;
+            this.metadataTtl = metadataTtl;
+            this.maxSizeBytes = maxSizeBytes;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.maven.model.*;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.maven.internal.MavenXmlMapper;
+import org.openrewrite.maven.internal.RawPluginRepositories;
+import org.openrewrite.maven.internal.RawPom;
+import org.openrewrite.maven.internal.RawRepositories;
+import org.openrewrite.maven.tree.GroupArtifact;
+import org.openrewrite.maven.tree.ProfileActivation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Converts the model Maven read from a {@code pom.xml} into the {@link RawPom} that rewrite would bind from
+ * the same file, so that the file does not have to be read and bound a second time. Only plugin
+ * configurations, which rewrite keeps as JSON, are bound from their XML.
+ */
+final class RawPomConverter {
+    private RawPomConverter() {
+    }
+
+    /**
+     * @param model The raw model of a project, as {@link org.apache.maven.project.MavenProject#getOriginalModel()}
+     *              returns it, before inheritance and interpolation.
+     */
+    static RawPom toRawPom(Model model) {
+        RawPom.Prerequisites prerequisites = null;
+        if (model.getPrerequisites() != null) {
+            prerequisites = new RawPom.Prerequisites();
+            prerequisites.maven = model.getPrerequisites().getMaven();
+        }
+        return new RawPom(
+                null,
+                parent(model.getParent()),
+                model.getGroupId(),
+                model.getArtifactId(),
+                model.getVersion(),
+                null,
+                model.getName(),
+                model.getDescription(),
+                prerequisites,
+                model.getPackaging(),
+                dependencies(model.getDependencies()),
+                dependencyManagement(model.getDependencyManagement()),
+                properties(model),
+                build(model.getBuild()),
+                repositories(model.getRepositories()),
+                pluginRepositories(model.getPluginRepositories()),
+                model.getLicenses().isEmpty() ? null : new RawPom.Licenses(model.getLicenses().stream()
+                        .map(license -> new RawPom.License(license.getName()))
+                        .collect(toList())),
+                model.getProfiles().isEmpty() ? null : new RawPom.Profiles(model.getProfiles().stream()
+                        .map(RawPomConverter::profile)
+                        .collect(toList())),
+                model.getModules().isEmpty() ? null : new RawPom.Modules(new ArrayList<>(model.getModules())),
+                null
+        );
+    }
+
+    private static RawPom.@Nullable Parent parent(@Nullable Parent parent) {
+        return parent == null ? null : new RawPom.Parent(parent.getGroupId(), parent.getArtifactId(),
+                parent.getVersion(), parent.getRelativePath());
+    }
+
+    private static RawPom.@Nullable Dependencies dependencies(List<Dependency> dependencies) {
+        return dependencies.isEmpty() ? null : new RawPom.Dependencies(dependencies.stream()
+                .map(RawPomConverter::dependency)
+                .collect(toList()));
+    }
+
+    private static RawPom.Dependency dependency(Dependency dependency) {
+        List<GroupArtifact> exclusions = dependency.getExclusions().isEmpty() ? null : dependency.getExclusions().stream()
+                .map(exclusion -> new GroupArtifact(exclusion.getGroupId(), exclusion.getArtifactId()))
+                .collect(toList());
+        return new RawPom.Dependency(
+                dependency.getGroupId(),
+                dependency.getArtifactId(),
+                dependency.getVersion(),
+                dependency.getScope(),
+                // Maven defaults the type, where an absent type element leaves it null for rewrite
+                "jar".equals(dependency.getType()) ? null : dependency.getType(),
+                dependency.getClassifier(),
+                dependency.getOptional(),
+                exclusions);
+    }
+
+    private static RawPom.@Nullable DependencyManagement dependencyManagement(@Nullable DependencyManagement dependencyManagement) {
+        return dependencyManagement == null ? null :
+                new RawPom.DependencyManagement(dependencies(dependencyManagement.getDependencies()));
+    }
+
+    private static @Nullable Map<String, String> properties(ModelBase model) {
+        if (model.getProperties().isEmpty()) {
+            return null;
+        }
+        Map<String, String> properties = new LinkedHashMap<>();
+        for (String name : model.getProperties().stringPropertyNames()) {
+            properties.put(name, model.getProperties().getProperty(name));
+        }
+        return properties;
+    }
+
+    private static RawPom.@Nullable Build build(@Nullable Build build) {
+        if (build == null) {
+            return null;
+        }
+        RawPom.Build rawBuild = new RawPom.Build();
+        if (!build.getPlugins().isEmpty()) {
+            rawBuild.setPlugins(build.getPlugins().stream().map(RawPomConverter::plugin).collect(toList()));
+        }
+        if (build.getPluginManagement() != null) {
+            RawPom.PluginManagement pluginManagement = new RawPom.PluginManagement();
+            pluginManagement.setPlugins(build.getPluginManagement().getPlugins().stream()
+                    .map(RawPomConverter::plugin)
+                    .collect(toList()));
+            rawBuild.setPluginManagement(pluginManagement);
+        }
+        return rawBuild;
+    }
+
+    private static RawPom.Plugin plugin(Plugin plugin) {
+        RawPom.Plugin rawPlugin = new RawPom.Plugin(plugin.getGroupId(), plugin.getArtifactId(), plugin.getVersion(),
+                plugin.getExtensions(), plugin.getInherited(), configuration(plugin.getConfiguration()));
+        if (!plugin.getDependencies().isEmpty()) {
+            rawPlugin.setDependencies(plugin.getDependencies().stream().map(RawPomConverter::dependency).collect(toList()));
+        }
+        if (!plugin.getExecutions().isEmpty()) {
+            rawPlugin.setExecutions(plugin.getExecutions().stream().map(execution -> {
+                RawPom.Execution rawExecution = new RawPom.Execution(execution.getId(), execution.getPhase(),
+                        execution.getInherited(), configuration(execution.getConfiguration()));
+                if (!execution.getGoals().isEmpty()) {
+                    rawExecution.setGoals(new ArrayList<>(execution.getGoals()));
+                }
+                return rawExecution;
+            }).collect(toList()));
+        }
+        return rawPlugin;
+    }
+
+    private static @Nullable JsonNode configuration(@Nullable Object configuration) {
+        if (!(configuration instanceof Xpp3Dom)) {
+            return null;
+        }
+        try {
+            return MavenXmlMapper.readMapper().readTree(configuration.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static @Nullable RawRepositories repositories(List<Repository> repositories) {
+        if (repositories.isEmpty()) {
+            return null;
+        }
+        RawRepositories rawRepositories = new RawRepositories();
+        rawRepositories.setRepositories(repositories.stream()
+                .map(repository -> new RawRepositories.Repository(repository.getId(), repository.getUrl(),
+                        repository.getReleases() == null ? null : new RawRepositories.ArtifactPolicy(repository.getReleases().getEnabled()),
+                        repository.getSnapshots() == null ? null : new RawRepositories.ArtifactPolicy(repository.getSnapshots().getEnabled())))
+                .collect(toList()));
+        return rawRepositories;
+    }
+
+    private static @Nullable RawPluginRepositories pluginRepositories(List<Repository> repositories) {
+        if (repositories.isEmpty()) {
+            return null;
+        }
+        RawPluginRepositories rawRepositories = new RawPluginRepositories();
+        rawRepositories.setPluginRepositories(repositories.stream()
+                .map(repository -> new RawPluginRepositories.PluginRepository(repository.getId(), repository.getUrl(),
+                        repository.getReleases() == null ? null : new RawPluginRepositories.ArtifactPolicy(repository.getReleases().getEnabled()),
+                        repository.getSnapshots() == null ? null : new RawPluginRepositories.ArtifactPolicy(repository.getSnapshots().getEnabled())))
+                .collect(toList()));
+        return rawRepositories;
+    }
+
+    private static RawPom.Profile profile(Profile profile) {
+        ProfileActivation activation = null;
+        Activation modelActivation = profile.getActivation();
+        if (modelActivation != null) {
+            ActivationProperty property = modelActivation.getProperty();
+            activation = new ProfileActivation(modelActivation.isActiveByDefault() ? Boolean.TRUE : null, modelActivation.getJdk(),
+                    property == null ? null : new ProfileActivation.Property(property.getName(), property.getValue()));
+        }
+        return new RawPom.Profile(
+                profile.getId(),
+                activation,
+                properties(profile),
+                dependencies(profile.getDependencies()),
+                dependencyManagement(profile.getDependencyManagement()),
+                repositories(profile.getRepositories()),
+                pluginRepositories(profile.getPluginRepositories()));
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.Parser;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Reads source files into memory ahead of the parser that consumes them, so that the latency of slow
+ * file systems (NFS-backed CI runners, for example) overlaps with parsing instead of adding to it.
+ * <p>
+ * Opening one of the {@link Parser.Input}s of a {@link #window(Collection)} schedules reads of the next
+ * {@code depth} files onto the heap on background threads. Files larger than {@link #MAX_READ_AHEAD_SIZE}
+ * are not read ahead, but opened from disk when the parser reaches them, which bounds the memory held by
+ * a window. Files are never memory-mapped, as a mapping keeps the file locked on Windows until it is
+ * garbage collected, which would keep the results of a run from being written back.
+ * <p>
+ * The reader owns the threads that read ahead, and is to be closed once parsing ends.
+ */
+class ReadAheadReader implements AutoCloseable {
+    static final long MAX_READ_AHEAD_SIZE = 8 * 1024 * 1024;
+
+    private static final int MAX_THREADS = 8;
+
+    private final int depth;
+    private final ExecutorService executor;
+
+    ReadAheadReader(int depth) {
+        this.depth = depth;
+        int threads = Math.min(depth, MAX_THREADS);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "rewrite-read-ahead");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Let the threads die between parses, so that a long-lived JVM (mvnd) does not keep them around
+        executor.allowCoreThreadTimeOut(true);
+        this.executor = executor;
+    }
+
+    /**
+     * Stops the threads that read ahead. Inputs opened afterwards are read from disk.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A window over {@code paths}, to be closed once parsing them ends, so that the files read ahead for inputs
+     * that were never opened are released.
+     */
+    Window window(Collection<Path> paths) {
+        return new Window(new ArrayList<>(paths));
+    }
+
+    class Window implements AutoCloseable {
+        private final List<Path> paths;
+        private final Map<Integer, Future<@Nullable ByteBuffer>> pending = new ConcurrentHashMap<>();
+        private int scheduledThrough = -1;
+        private boolean closed;
+
+        private Window(List<Path> paths) {
+            this.paths = paths;
+        }
+
+        List<Parser.Input> inputs() {
+            List<Parser.Input> inputs = new ArrayList<>(paths.size());
+            for (int i = 0; i < paths.size(); i++) {
+                int index = i;
+                inputs.add(new Parser.Input(paths.get(i), () -> open(index)));
+            }
+            return inputs;
+        }
+
+        int pending() {
+            return pending.size();
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            for (Future<@Nullable ByteBuffer> read : pending.values()) {
+                read.cancel(true);
+            }
+            pending.clear();
+        }
+
+        private InputStream open(int index) {
+            scheduleThrough(Math.min(index + depth, paths.size() - 1));
+            Future<@Nullable ByteBuffer> read = pending.remove(index);
+            if (read != null && executor.isShutdown()) {
+                // a closed reader may never run a read it had queued
+                read.cancel(true);
+            }
+            ByteBuffer buffer = read == null || read.isCancelled() ? null : await(read);
+            // A parser may open the same input more than once; only the first read is served from memory
+            return buffer == null ? newInputStream(paths.get(index)) : new ByteBufferInputStream(buffer);
+        }
+
+        private synchronized void scheduleThrough(int last) {
+            while (!closed && !executor.isShutdown() && scheduledThrough < last) {
+                Path path = paths.get(++scheduledThrough);
+                try {
+                    pending.put(scheduledThrough, executor.submit(() -> read(path)));
+                } catch (RejectedExecutionException e) {
+                    // the reader was closed concurrently, the rest is read from disk
+                    return;
+                }
+            }
+        }
+    }
+
+    private static @Nullable ByteBuffer await(Future<@Nullable ByteBuffer> read) {
+        try {
+            return read.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while reading ahead"));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static @Nullable ByteBuffer read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAX_READ_AHEAD_SIZE) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the buffer is full or the end of the file is reached
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    private static InputStream newInputStream(Path path) {
+        try {
+            return new BufferedInputStream(Files.newInputStream(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.ipc.http.HttpSender;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.Collections.singletonList;
+
+/**
+ * Serves the POM downloads of rewrite's {@code MavenPomDownloader} through Maven's {@link RepositorySystem}, which
+ * uses the session's local repository, mirrors, authentication, transport and checksum policies. Requests for
+ * anything but a release POM in one of Maven's remote repositories, and requests Maven fails to serve for other
+ * reasons than the POM not existing, are sent over HTTP as before.
+ */
+class RepositorySystemHttpSender implements HttpSender {
+    private final RepositorySystem repositorySystem;
+    private final RepositorySystemSession session;
+    private final Map<String, RemoteRepository> repositoriesByUrl = new LinkedHashMap<>();
+    private final HttpSender delegate;
+    private final Log logger;
+
+    RepositorySystemHttpSender(RepositorySystem repositorySystem, RepositorySystemSession session,
+                               Collection<RemoteRepository> repositories, HttpSender delegate, Log logger) {
+        this.repositorySystem = repositorySystem;
+        this.session = session;
+        for (RemoteRepository repository : repositories) {
+            repositoriesByUrl.putIfAbsent(withTrailingSlash(repository.getUrl()), repository);
+        }
+        this.delegate = delegate;
+        this.logger = logger;
+    }
+
+    @Override
+    public Response send(Request request) {
+        if (request.getMethod() != Method.GET) {
+            return delegate.send(request);
+        }
+        String url = request.getUrl().toString();
+        for (Map.Entry<String, RemoteRepository> repository : repositoriesByUrl.entrySet()) {
+            if (url.startsWith(repository.getKey())) {
+                DefaultArtifact pom = pomArtifact(url.substring(repository.getKey().length()));
+                if (pom != null) {
+                    Response response = resolve(pom, repository.getValue());
+                    if (response != null) {
+                        return response;
+                    }
+                }
+                break;
+            }
+        }
+        return delegate.send(request);
+    }
+
+    private @Nullable Response resolve(DefaultArtifact pom, RemoteRepository repository) {
+        try {
+            ArtifactResult result = repositorySystem.resolveArtifact(session, new ArtifactRequest(pom, singletonList(repository), null));
+            File file = result.getArtifact().getFile();
+            return new Response(200, new ByteArrayInputStream(Files.readAllBytes(file.toPath())), () -> {
+            });
+        } catch (ArtifactResolutionException e) {
+            for (ArtifactResult result : e.getResults()) {
+                for (Exception exception : result.getExceptions()) {
+                    if (exception instanceof ArtifactNotFoundException) {
+                        return new Response(404, new ByteArrayInputStream(new byte[0]), () -> {
+                        });
+                    }
+                }
+            }
+            logger.debug("Unable to resolve " + pom + " from " + repository.getUrl() + " through Maven, falling back to HTTP", e);
+            return null;
+        } catch (IOException e) {
+            logger.debug("Unable to read " + pom + " resolved through Maven, falling back to HTTP", e);
+            return null;
+        }
+    }
+
+    /**
+     * @param path A path relative to a repository root, in the Maven 2 repository layout.
+     * @return The release POM at that path, or {@code null} if the path is of anything else.
+     */
+    static @Nullable DefaultArtifact pomArtifact(String path) {
+        String[] segments = path.split("/");
+        if (segments.length < 4) {
+            return null;
+        }
+        String fileName = segments[segments.length - 1];
+        String version = segments[segments.length - 2];
+        String artifactId = segments[segments.length - 3];
+        if (version.endsWith("-SNAPSHOT") || !fileName.equals(artifactId + '-' + version + ".pom")) {
+            return null;
+        }
+        StringBuilder groupId = new StringBuilder();
+        for (int i = 0; i < segments.length - 3; i++) {
+            if (segments[i].isEmpty()) {
+                return null;
+            }
+            if (groupId.length() > 0) {
+                groupId.append('.');
+            }
+            groupId.append(segments[i]);
+        }
+        return new DefaultArtifact(groupId.toString(), artifactId, "", "pom", version);
+    }
+
+    private static String withTrailingSlash(String url) {
+        return url.endsWith("/") ? url : url + '/';
+    }
+}
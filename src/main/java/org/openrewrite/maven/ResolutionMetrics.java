@@ -0,0 +1,284 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.apache.maven.plugin.logging.Log;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.ipc.http.HttpSender;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures where the time resolving POMs goes: the downloads from each repository, with their size and latency,
+ * the POMs and failures the resolution reports, and the lookups answered by each layer of the POM cache.
+ * <p>
+ * Everything is published to the global registry, downloads as the {@code rewrite.maven.download} timer with a
+ * latency histogram and the {@code rewrite.maven.download.size} summary, tagged with the repository, and is
+ * summarized in a table at the end of the run, at info level when asked for and otherwise at debug level.
+ */
+class ResolutionMetrics {
+    private static final String CONTEXT_KEY = ResolutionMetrics.class.getName();
+
+    private final List<String> repositories;
+    private final Map<String, RepositoryStats> stats = new ConcurrentSkipListMap<>();
+    private final Map<String, long[]> layersAtStart = new HashMap<>();
+    private final AtomicLong resolutionNanos = new AtomicLong();
+    private final LongAdder unresolved = new LongAdder();
+
+    /**
+     * @param repositoryUrls The URLs of the repositories downloads are attributed to, when under one of them.
+     *                       Other downloads are attributed to their host.
+     */
+    ResolutionMetrics(Collection<String> repositoryUrls) {
+        List<String> repositories = new ArrayList<>();
+        for (String url : repositoryUrls) {
+            repositories.add(url.endsWith("/") ? url : url + '/');
+        }
+        // the longest URL first, so that a download is attributed to the most specific repository
+        repositories.sort(Comparator.comparingInt(String::length).reversed());
+        this.repositories = repositories;
+        for (String layer : Arrays.asList(MeteredMavenPomCache.L1, MeteredMavenPomCache.L2)) {
+            layersAtStart.put(layer, snapshot(MeteredMavenPomCache.stats(layer)));
+        }
+    }
+
+    /**
+     * The metrics of the run {@code ctx} belongs to, started with {@code repositoryUrls} if not started already.
+     */
+    static ResolutionMetrics start(Collection<String> repositoryUrls, ExecutionContext ctx) {
+        ResolutionMetrics metrics = ctx.getMessage(CONTEXT_KEY);
+        if (metrics == null) {
+            metrics = new ResolutionMetrics(repositoryUrls);
+            ctx.putMessage(CONTEXT_KEY, metrics);
+        }
+        return metrics;
+    }
+
+    /**
+     * Log the summary of the run {@code ctx} belongs to, if anything was resolved, at info level or else at debug
+     * level, and stop its metrics.
+     */
+    static void printSummary(ExecutionContext ctx, Log log, boolean info) {
+        ResolutionMetrics metrics = ctx.pollMessage(CONTEXT_KEY);
+        if (metrics != null) {
+            if (info) {
+                metrics.summary().forEach(log::info);
+            } else if (log.isDebugEnabled()) {
+                metrics.summary().forEach(log::debug);
+            }
+        }
+    }
+
+    HttpSender wrap(HttpSender delegate) {
+        return new Sender(delegate);
+    }
+
+    void resolved(@Nullable String repository) {
+        String key = repository == null ? "(unknown)" : repository(repository);
+        stats(key).resolved.increment();
+        Counter.builder("rewrite.maven.pom.resolved").tag("repository", key).register(Metrics.globalRegistry).increment();
+    }
+
+    void unresolved() {
+        unresolved.increment();
+        Counter.builder("rewrite.maven.pom.unresolved").register(Metrics.globalRegistry).increment();
+    }
+
+    void repositoryFailed(String url) {
+        String key = repository(url);
+        stats(key).repositoryFailures.increment();
+        Counter.builder("rewrite.maven.repository.failed").tag("repository", key).register(Metrics.globalRegistry).increment();
+    }
+
+    void resolutionTime(long nanos) {
+        resolutionNanos.addAndGet(nanos);
+        Timer.builder("rewrite.maven.resolution").register(Metrics.globalRegistry).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    List<String> summary() {
+        List<String> lines = new ArrayList<>();
+        long[] l1 = delta(MeteredMavenPomCache.L1);
+        long[] l2 = delta(MeteredMavenPomCache.L2);
+        if (stats.isEmpty() && l1[0] + l1[1] == 0 && resolutionNanos.get() == 0) {
+            return lines;
+        }
+
+        lines.add(String.format("POM resolution took %d ms, %d POM(s) could not be resolved",
+                TimeUnit.NANOSECONDS.toMillis(resolutionNanos.get()), unresolved.sum()));
+        if (!stats.isEmpty()) {
+            int width = "Repository".length();
+            for (String repository : stats.keySet()) {
+                width = Math.max(width, repository.length());
+            }
+            String format = "  %-" + width + "s %9s %7s %10s %8s %8s %8s %7s";
+            lines.add(String.format(format, "Repository", "Requests", "Failed", "KiB", "Avg ms", "Max ms", "Total ms", "POMs"));
+            stats.forEach((repository, s) -> {
+                long requests = s.requests.sum();
+                long nanos = s.nanos.sum();
+                lines.add(String.format(format, repository, requests, s.failures.sum() + s.repositoryFailures.sum(),
+                        s.bytes.sum() / 1024, requests == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(nanos / requests),
+                        TimeUnit.NANOSECONDS.toMillis(s.maxNanos.get()), TimeUnit.NANOSECONDS.toMillis(nanos),
+                        s.resolved.sum()));
+            });
+        }
+        lines.add(String.format("  POM cache: L1 %s, L2 %s", layer(l1), layer(l2)));
+        return lines;
+    }
+
+    private static String layer(long[] delta) {
+        long lookups = delta[0] + delta[1];
+        if (lookups == 0) {
+            return "not used";
+        }
+        return String.format("%d lookup(s), %.1f%% hits, %d ms", lookups, 100.0 * delta[0] / lookups,
+                TimeUnit.NANOSECONDS.toMillis(delta[2]));
+    }
+
+    private long[] delta(String layer) {
+        long[] now = snapshot(MeteredMavenPomCache.stats(layer));
+        long[] start = layersAtStart.get(layer);
+        return new long[]{now[0] - start[0], now[1] - start[1], now[2] - start[2]};
+    }
+
+    private static long[] snapshot(MeteredMavenPomCache.Stats stats) {
+        return new long[]{stats.hits.sum(), stats.misses.sum(), stats.nanos.sum()};
+    }
+
+    private RepositoryStats stats(String repository) {
+        return stats.computeIfAbsent(repository, r -> new RepositoryStats());
+    }
+
+    private String repository(String url) {
+        String withSlash = url.endsWith("/") ? url : url + '/';
+        for (String repository : repositories) {
+            if (withSlash.startsWith(repository)) {
+                return repository;
+            }
+        }
+        try {
+            URL parsed = new URL(url);
+            return parsed.getProtocol() + "://" + parsed.getAuthority() + '/';
+        } catch (IOException e) {
+            return url;
+        }
+    }
+
+    private void download(String repository, String outcome, long bytes, long nanos) {
+        RepositoryStats s = stats(repository);
+        s.requests.increment();
+        s.bytes.add(bytes);
+        s.nanos.add(nanos);
+        s.maxNanos.accumulateAndGet(nanos, Math::max);
+        if ("error".equals(outcome) || outcome.startsWith("5")) {
+            s.failures.increment();
+        }
+        Timer.builder("rewrite.maven.download")
+                .tag("repository", repository)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("rewrite.maven.download.size")
+                .baseUnit("bytes")
+                .tag("repository", repository)
+                .register(Metrics.globalRegistry)
+                .record(bytes);
+    }
+
+    private static class RepositoryStats {
+        final LongAdder requests = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder repositoryFailures = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+        final LongAdder resolved = new LongAdder();
+    }
+
+    /**
+     * Times each download from the request to the end of its body, which is counted as it is read.
+     */
+    class Sender implements HttpSender {
+        private final HttpSender delegate;
+
+        private Sender(HttpSender delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Response send(Request request) {
+            String repository = repository(request.getUrl().toString());
+            long start = System.nanoTime();
+            Response response;
+            try {
+                response = delegate.send(request);
+            } catch (UncheckedIOException e) {
+                download(repository, "error", 0, System.nanoTime() - start);
+                throw e;
+            }
+            String outcome = Integer.toString(response.getCode());
+            AtomicBoolean recorded = new AtomicBoolean();
+            LongAdder bytes = new LongAdder();
+            Runnable record = () -> {
+                if (recorded.compareAndSet(false, true)) {
+                    download(repository, outcome, bytes.sum(), System.nanoTime() - start);
+                }
+            };
+            InputStream body = response.getBody();
+            return new Response(response.getCode(), body == null ? null : new FilterInputStream(body) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) {
+                        bytes.increment();
+                    } else {
+                        record.run();
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int n = super.read(buffer, offset, length);
+                    if (n > 0) {
+                        bytes.add(n);
+                    } else if (n < 0) {
+                        record.run();
+                    }
+                    return n;
+                }
+            }, response.getHeaders(), () -> {
+                record.run();
+                response.close();
+            });
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Load a POM cache snapshot written by {@code rewrite:cacheExport} into the persistent POM cache, adding to or
+ * replacing its entries. The snapshot is verified against its checksum before anything is imported. For example:<br>
+ * {@code ./mvnw rewrite:cacheImport -Drewrite.cacheSnapshot=/tmp/pom-cache.snapshot}
+ */
+@Mojo(name = "cacheImport", threadSafe = true, requiresProject = false, aggregator = true)
+@SuppressWarnings("unused")
+public class RewriteCacheImportMojo extends AbstractRewriteMojo {
+
+    /**
+     * The snapshot file to read.
+     */
+    @Parameter(property = "rewrite.cacheSnapshot", alias = "cacheSnapshot", defaultValue = "rewrite-pom-cache.snapshot")
+    String cacheSnapshot;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        Path workspace = Paths.get(pomCacheDirectory == null ? System.getProperty("user.home") : pomCacheDirectory);
+        Path snapshot = Paths.get(cacheSnapshot);
+        try {
+            int entries = PomCacheSnapshot.importInto(workspace, snapshot);
+            getLog().info("Imported " + entries + " POM cache entries from " + snapshot + " to " + workspace);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to import the POM cache from " + snapshot, e);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Execute;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.*;
+import org.openrewrite.config.Environment;
+import org.openrewrite.internal.InMemoryLargeSourceSet;
+import org.openrewrite.java.internal.JavaTypeCache;
+import org.openrewrite.scheduling.RecipeRunCycle;
+import org.openrewrite.scheduling.WatchableExecutionContext;
+import org.openrewrite.style.NamedStyles;
+import org.openrewrite.table.RecipeRunStats;
+import org.openrewrite.table.SearchResults;
+import org.openrewrite.table.SourcesFileErrors;
+import org.openrewrite.table.SourcesFileResults;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Parse the project once, then watch its source and resource directories and run the active recipes
+ * on every file that changes, reporting each iteration and its latency.
+ * <p>
+ * Type caches and the parsed source files stay warm between iterations, so a change only costs parsing the
+ * changed files. Recipes see all source files, as with rewrite:run, but only change those that changed. By default the changes recipes would make are reported as with rewrite:dryRun; set
+ * {@code rewrite.watch.apply} to write them as with rewrite:run. Stop watching with Ctrl+C.
+ */
+@Execute(phase = LifecyclePhase.PROCESS_TEST_CLASSES)
+@Mojo(name = "watch", requiresDependencyResolution = ResolutionScope.TEST, threadSafe = true,
+        defaultPhase = LifecyclePhase.PROCESS_TEST_CLASSES)
+public class RewriteWatchMojo extends AbstractRewriteRunMojo {
+    // as many as Recipe#run(LargeSourceSet, ExecutionContext) runs
+    private static final int MAX_CYCLES = 3;
+
+    /**
+     * Whether to write the changes recipes make, rather than only reporting them.
+     */
+    @Parameter(property = "rewrite.watch.apply", defaultValue = "false")
+    protected boolean apply;
+
+    /**
+     * How long to wait for more file system events after a change, so that a save touching
+     * several files results in one iteration.
+     */
+    @Parameter(property = "rewrite.watch.quietPeriodMillis", defaultValue = "200")
+    protected long quietPeriodMillis;
+
+    /**
+     * Iterations that take longer than this are reported as a warning.
+     */
+    @Parameter(property = "rewrite.watch.latencyTargetMillis", defaultValue = "1000")
+    protected long latencyTargetMillis;
+
+    private final JavaTypeCache typeCache = new JavaTypeCache();
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private final Set<WatchKey> recursivelyWatched = new HashSet<>();
+    private Set<UUID> editable = Collections.emptySet();
+
+    @Override
+    protected MavenMojoProjectParser newProjectParser(Path repositoryRoot) {
+        return new MavenMojoProjectParser(getLog(), repositoryRoot, pomCacheEnabled, pomCacheDirectory, runtime, skipMavenParsing, getExclusions(), getPlainTextMasks(), sizeThresholdMb, mavenSession, settingsDecrypter, runPerSubmodule) {
+            @Override
+            protected JavaTypeCache createTypeCache() {
+                return typeCache;
+            }
+        };
+    }
+
+    /**
+     * Scan all the source files parsed so far, but only edit those parsed in the current iteration.
+     */
+    @Override
+    protected RecipeRun scheduleRun(Recipe recipe, LargeSourceSet sourceSet, ExecutionContext ctx) {
+        Set<UUID> editable = this.editable;
+        return new RecipeScheduler() {
+            @Override
+            protected RecipeRunCycle<LargeSourceSet> createRecipeRunCycle(Recipe recipe, int cycle, Cursor rootCursor, WatchableExecutionContext ctxWithWatch,
+                                                                          RecipeRunStats recipeRunStats, SearchResults searchResults,
+                                                                          SourcesFileResults sourceFileResults, SourcesFileErrors errorsTable) {
+                return new RecipeRunCycle<LargeSourceSet>(recipe, cycle, rootCursor, ctxWithWatch, recipeRunStats, searchResults,
+                        sourceFileResults, errorsTable, LargeSourceSet::edit) {
+                    @Override
+                    protected SourceFile editSource(LargeSourceSet sourceSet, SourceFile sourceFile) {
+                        return editable.contains(sourceFile.getId()) ? super.editSource(sourceSet, sourceFile) : sourceFile;
+                    }
+                };
+            }
+        }.scheduleRun(recipe, sourceSet, ctx, MAX_CYCLES, 1);
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (rewriteSkip) {
+            getLog().info("Skipping execution");
+            putState(State.SKIPPED);
+            return;
+        }
+        putState(State.TO_BE_PROCESSED);
+
+        // If the plugin is configured to run over all projects (at the end of the build) only proceed if the plugin
+        // is being run on the last project.
+        if (!runPerSubmodule && !allProjectsMarked()) {
+            getLog().info("REWRITE: Delaying execution to the end of multi-module project for " +
+                project.getGroupId() + ":" +
+                project.getArtifactId()+ ":" +
+                project.getVersion());
+            return;
+        }
+
+        List<Throwable> throwables = new ArrayList<>();
+        ExecutionContext ctx = executionContext(throwables);
+        Path repositoryRoot = repositoryRoot();
+        getLog().info(String.format("Using active recipe(s) %s", getActiveRecipes()));
+        if (getActiveRecipes().isEmpty()) {
+            putState(State.PROCESSED);
+            return;
+        }
+        Environment env = recipeEnvironment();
+        Recipe recipe = activateRecipe(env, ctx);
+        if (recipe == null) {
+            putState(State.PROCESSED);
+            return;
+        }
+
+        MavenMojoProjectParser projectParser = projectParser(repositoryRoot);
+        long start = System.nanoTime();
+        Map<Path, SourceFile> sourceFiles = new HashMap<>();
+        Map<Class<?>, List<NamedStyles>> stylesByType = new HashMap<>();
+        for (SourceFile sourceFile : sourcesWithAutoDetectedStyles(listSourceFiles(projectParser, ctx), loadStyles(project, env))) {
+            sourceFiles.put(sourceFile.getSourcePath(), sourceFile);
+            stylesByType.putIfAbsent(sourceFile.getClass(), sourceFile.getMarkers().findAll(NamedStyles.class));
+        }
+        getLog().info("Parsed " + sourceFiles.size() + " source files in " + millisSince(start) + " ms");
+
+        try (WatchService watchService = repositoryRoot.getFileSystem().newWatchService()) {
+            for (MavenProject watchedProject : runPerSubmodule ? singletonList(project) : mavenSession.getProjects()) {
+                watch(watchService, watchedProject);
+            }
+            getLog().info("Watching " + watchedDirectories.size() + " directories for changes, press Ctrl+C to stop");
+
+            for (int iteration = 1; ; iteration++) {
+                Set<Path> changed = awaitChanges(watchService);
+                long iterationStart = System.nanoTime();
+
+                List<Path> existing = changed.stream().filter(Files::isRegularFile).collect(toList());
+                changed.stream()
+                        .filter(path -> !Files.exists(path))
+                        .forEach(deleted -> sourceFiles.remove(repositoryRoot.relativize(deleted)));
+                List<SourceFile> reparsed = new ArrayList<>();
+                if (!existing.isEmpty()) {
+                    projectParser.changedPaths(new HashSet<>(existing));
+                    try (Stream<SourceFile> parsed = listSourceFiles(projectParser, ctx)) {
+                        parsed.map(sourceFile -> withStyles(sourceFile, stylesByType)).forEach(reparsed::add);
+                    }
+                    reparsed.forEach(sourceFile -> sourceFiles.put(sourceFile.getSourcePath(), sourceFile));
+                }
+                long parseMillis = millisSince(iterationStart);
+
+                long recipeStart = System.nanoTime();
+                // recipes see the whole project, as with rewrite:run, but only change what changed on disk
+                editable = reparsed.stream().map(SourceFile::getId).collect(toSet());
+                List<Result> results = reparsed.isEmpty() ? Collections.emptyList() :
+                        runRecipe(recipe, new InMemoryLargeSourceSet(new ArrayList<>(sourceFiles.values())), ctx);
+                long recipeMillis = millisSince(recipeStart);
+
+                ResultsContainer container = new ResultsContainer(repositoryRoot, results);
+                if (!reportErrors(container, throwables)) {
+                    // as with rewrite:run, nothing is applied when a recipe failed
+                    results = Collections.emptyList();
+                } else if (apply) {
+                    applyResults(container, ctx);
+                    for (Result result : results) {
+                        if (result.getBefore() != null) {
+                            sourceFiles.remove(result.getBefore().getSourcePath());
+                        }
+                        if (result.getAfter() != null) {
+                            sourceFiles.put(result.getAfter().getSourcePath(), result.getAfter());
+                        }
+                    }
+                } else {
+                    report(results);
+                }
+
+                long totalMillis = millisSince(iterationStart);
+                String summary = String.format("Iteration %d: %d files changed, parsed %d in %d ms, ran recipes in %d ms, %d results, %d ms in total",
+                        iteration, changed.size(), reparsed.size(), parseMillis, recipeMillis, results.size(), totalMillis);
+                if (totalMillis > latencyTargetMillis) {
+                    getLog().warn(summary + ", above the latency target of " + latencyTargetMillis + " ms");
+                } else {
+                    getLog().info(summary);
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to watch for file changes", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            projectParser.close();
+            MavenMojoProjectParser.stopBackgroundResolution(ctx);
+            ProfiledRocksdbMavenPomCache.release(ctx, allProjectsMarked());
+        }
+        putState(State.PROCESSED);
+    }
+
+    private Stream<SourceFile> listSourceFiles(MavenMojoProjectParser projectParser, ExecutionContext ctx) throws MojoExecutionException, MojoFailureException {
+        try {
+            return projectParser.listSourceFiles(project, ctx);
+        } catch (DependencyResolutionRequiredException e) {
+            throw new MojoExecutionException("Dependency resolution required", e);
+        }
+    }
+
+    private static SourceFile withStyles(SourceFile sourceFile, Map<Class<?>, List<NamedStyles>> stylesByType) {
+        SourceFile styled = sourceFile;
+        for (NamedStyles style : stylesByType.getOrDefault(sourceFile.getClass(), Collections.emptyList())) {
+            styled = styled.withMarkers(styled.getMarkers().add(style));
+        }
+        return styled;
+    }
+
+    /**
+     * Report the errors and warnings recipes produced in an iteration as rewrite:run and rewrite:dryRun do, but
+     * without ending the watch.
+     *
+     * @return Whether the results are free of recipe errors.
+     */
+    private boolean reportErrors(ResultsContainer container, List<Throwable> throwables) {
+        RuntimeException firstException = container.getFirstException();
+        if (firstException != null) {
+            getLog().error("The recipe produced an error. Please report this to the recipe author.", firstException);
+        }
+        if (!throwables.isEmpty()) {
+            getLog().warn("The recipe produced " + throwables.size() + " warning(s). Please report this to the recipe author.");
+            if (!getLog().isDebugEnabled() && !exportDatatables) {
+                getLog().warn("Run with `--debug` or `-Drewrite.exportDatatables=true` to see all warnings.", throwables.get(0));
+            }
+            throwables.clear();
+        }
+        return firstException == null;
+    }
+
+    private void report(List<Result> results) {
+        for (Result result : results) {
+            SourceFile sourceFile = result.getBefore() == null ? result.getAfter() : result.getBefore();
+            assert sourceFile != null;
+            getLog().warn("These recipes would make changes to " + sourceFile.getSourcePath() + ":");
+            logRecipesThatMadeChanges(result);
+            getLog().warn(result.diff());
+        }
+    }
+
+    private void watch(WatchService watchService, MavenProject watchedProject) throws IOException {
+        // the project directory itself is only watched for changes to the POM
+        register(watchService, watchedProject.getBasedir().toPath(), false);
+        Set<String> roots = new LinkedHashSet<>(watchedProject.getCompileSourceRoots());
+        roots.addAll(watchedProject.getTestCompileSourceRoots());
+        for (Resource resource : watchedProject.getResources()) {
+            roots.add(resource.getDirectory());
+        }
+        for (Resource resource : watchedProject.getTestResources()) {
+            roots.add(resource.getDirectory());
+        }
+        Path buildDirectory = Paths.get(watchedProject.getBuild().getDirectory());
+        for (String root : roots) {
+            Path path = watchedProject.getBasedir().toPath().resolve(root);
+            if (Files.isDirectory(path) && !path.startsWith(buildDirectory)) {
+                registerAll(watchService, path, null);
+            }
+        }
+    }
+
+    private void registerAll(WatchService watchService, Path root, @Nullable Set<Path> createdFiles) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                register(watchService, dir, true);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (createdFiles != null) {
+                    createdFiles.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void register(WatchService watchService, Path dir, boolean recursive) throws IOException {
+        WatchKey key = dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        watchedDirectories.put(key, dir);
+        if (recursive) {
+            recursivelyWatched.add(key);
+        }
+    }
+
+    /**
+     * Block until files change, then collect further changes until none arrive for the quiet period.
+     */
+    private Set<Path> awaitChanges(WatchService watchService) throws InterruptedException, IOException {
+        Set<Path> changed = new LinkedHashSet<>();
+        WatchKey key = watchService.take();
+        while (key != null) {
+            Path dir = watchedDirectories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    getLog().warn("Some file system events were lost, changes may be missed until the files change again");
+                    continue;
+                }
+                Path path = dir.resolve((Path) event.context());
+                if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                    if (event.kind() == ENTRY_CREATE && recursivelyWatched.contains(key)) {
+                        registerAll(watchService, path, changed);
+                    }
+                } else {
+                    changed.add(path);
+                }
+            }
+            if (!key.reset()) {
+                watchedDirectories.remove(key);
+                recursivelyWatched.remove(key);
+            }
+            key = watchService.poll(quietPeriodMillis, TimeUnit.MILLISECONDS);
+        }
+        return changed;
+    }
+
+    private static long millisSince(long nanoTime) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - nanoTime);
+    }
+}
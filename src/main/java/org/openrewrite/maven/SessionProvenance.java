@@ -0,0 +1,241 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.aether.RepositorySystemSession;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.marker.GitProvenance;
+import org.openrewrite.marker.OperatingSystemProvenance;
+import org.openrewrite.marker.ci.BuildEnvironment;
+import org.openrewrite.marker.ci.IncompleteGitConfigException;
+import org.openrewrite.marker.ci.JenkinsBuildEnvironment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.openrewrite.Tree.randomId;
+
+/**
+ * The provenance markers shared by all the modules of a Maven session: the build environment, the operating system
+ * and the git provenance of each repository root, each computed once per session, and safely so when modules are
+ * built in parallel with {@code -T}.
+ * <p>
+ * Computing git provenance walks the history of the repository. Optionally, it is also persisted by the commit
+ * {@code HEAD} points to, with the repository's configuration and the branch the build environment names, so that
+ * later builds of the same commit skip the walk.
+ */
+class SessionProvenance {
+    private final @Nullable Path cacheDirectory;
+    private final @Nullable BuildEnvironment buildEnvironment;
+    private final OperatingSystemProvenance operatingSystem;
+    private final Map<Path, Optional<GitProvenance>> gitProvenance = new ConcurrentHashMap<>();
+
+    /**
+     * @param cacheDirectory Where to persist git provenance, or {@code null} to compute it in every session.
+     */
+    SessionProvenance(@Nullable Path cacheDirectory) {
+        this(cacheDirectory, BuildEnvironment.build(System::getenv));
+    }
+
+    SessionProvenance(@Nullable Path cacheDirectory, @Nullable BuildEnvironment buildEnvironment) {
+        this.cacheDirectory = cacheDirectory;
+        this.buildEnvironment = buildEnvironment;
+        this.operatingSystem = OperatingSystemProvenance.current();
+    }
+
+    /**
+     * The provenance of {@code session}, kept in the data of its repository session so that it lives exactly as long
+     * as the build.
+     */
+    static SessionProvenance forSession(MavenSession session, @Nullable Path cacheDirectory) {
+        RepositorySystemSession repositorySession = session.getRepositorySession();
+        if (repositorySession == null) {
+            return new SessionProvenance(cacheDirectory);
+        }
+        String key = SessionProvenance.class.getName();
+        synchronized (SessionProvenance.class) {
+            Object provenance = repositorySession.getData().get(key);
+            if (!(provenance instanceof SessionProvenance)) {
+                provenance = new SessionProvenance(cacheDirectory);
+                repositorySession.getData().set(key, provenance);
+            }
+            return (SessionProvenance) provenance;
+        }
+    }
+
+    @Nullable
+    BuildEnvironment getBuildEnvironment() {
+        return buildEnvironment;
+    }
+
+    OperatingSystemProvenance getOperatingSystem() {
+        return operatingSystem;
+    }
+
+    @Nullable
+    GitProvenance getGitProvenance(Path repositoryRoot, Log logger) {
+        return gitProvenance.computeIfAbsent(repositoryRoot, root -> {
+            Path file = cacheDirectory == null ? null : cacheDirectory.resolve("git-provenance-" + Sha256.hex(Sha256.digest(root.toString().getBytes(UTF_8))) + ".bin");
+            String head = file == null ? null : headKey(root);
+            if (head != null) {
+                GitProvenance persisted = read(file, head);
+                if (persisted != null) {
+                    return Optional.of(persisted);
+                }
+            }
+            try {
+                GitProvenance computed = GitProvenance.fromProjectDirectory(root, buildEnvironment);
+                if (computed != null && head != null) {
+                    write(file, head, computed, logger);
+                }
+                return Optional.ofNullable(computed);
+            } catch (Exception e) {
+                // Logging at a low level as this is unlikely to happen except in non-git projects, where it is expected
+                logger.debug("Unable to determine git provenance", e);
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    /**
+     * What the git provenance of {@code repositoryRoot} depends on: the commit {@code HEAD} points to and how, the
+     * repository's configuration and shallowness, and what the build environment tells about the branch and change,
+     * which {@link GitProvenance} prefers over the repository's own.
+     *
+     * @return {@code null} when the repository is not one this can read, such as a worktree.
+     */
+    private @Nullable String headKey(Path repositoryRoot) {
+        Path git = repositoryRoot.resolve(".git");
+        if (!Files.isDirectory(git)) {
+            return null;
+        }
+        try {
+            String head = new String(Files.readAllBytes(git.resolve("HEAD")), UTF_8).trim();
+            String commit = head;
+            if (head.startsWith("ref: ")) {
+                commit = resolveRef(git, head.substring("ref: ".length()));
+                if (commit == null) {
+                    return null;
+                }
+            }
+            MessageDigest digest = Sha256.newDigest();
+            List<String> parts = new ArrayList<>(Arrays.asList(repositoryRoot.toString(), head, commit));
+            parts.addAll(environmentKey(buildEnvironment));
+            for (String part : parts) {
+                digest.update(part.getBytes(UTF_8));
+                digest.update((byte) 0);
+            }
+            for (Path file : Arrays.asList(git.resolve("config"), git.resolve("shallow"))) {
+                if (Files.isRegularFile(file)) {
+                    digest.update(Files.readAllBytes(file));
+                }
+                digest.update((byte) 0);
+            }
+            return Sha256.hex(digest.digest());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static List<String> environmentKey(@Nullable BuildEnvironment buildEnvironment) {
+        List<String> parts = new ArrayList<>();
+        if (buildEnvironment == null) {
+            return parts;
+        }
+        parts.add(buildEnvironment.getClass().getName());
+        if (buildEnvironment instanceof JenkinsBuildEnvironment) {
+            JenkinsBuildEnvironment jenkins = (JenkinsBuildEnvironment) buildEnvironment;
+            parts.add(String.valueOf(jenkins.getBranch()));
+            parts.add(String.valueOf(jenkins.getLocalBranch()));
+        }
+        try {
+            GitProvenance fromEnvironment = buildEnvironment.buildGitProvenance();
+            parts.add(String.valueOf(fromEnvironment.getOrigin()));
+            parts.add(String.valueOf(fromEnvironment.getBranch()));
+            parts.add(String.valueOf(fromEnvironment.getChange()));
+        } catch (IncompleteGitConfigException e) {
+            // the environment does not describe the repository by itself
+            parts.add("");
+        }
+        return parts;
+    }
+
+    private static @Nullable String resolveRef(Path git, String ref) throws IOException {
+        Path loose = git.resolve(ref);
+        if (Files.isRegularFile(loose)) {
+            return new String(Files.readAllBytes(loose), UTF_8).trim();
+        }
+        Path packed = git.resolve("packed-refs");
+        if (Files.isRegularFile(packed)) {
+            List<String> lines = Files.readAllLines(packed, UTF_8);
+            for (String line : lines) {
+                if (line.endsWith(' ' + ref)) {
+                    return line.substring(0, line.indexOf(' '));
+                }
+            }
+        }
+        // a branch without commits yet
+        return null;
+    }
+
+    private static @Nullable GitProvenance read(Path file, String head) {
+        try {
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+            byte[] bytes = Files.readAllBytes(file);
+            byte[] key = (head + '\n').getBytes(UTF_8);
+            if (bytes.length <= key.length || !Arrays.equals(key, Arrays.copyOf(bytes, key.length))) {
+                return null;
+            }
+            return PomCacheMapper.MAPPER.readValue(bytes, key.length, bytes.length - key.length, GitProvenance.class)
+                    .withId(randomId());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void write(Path file, String head, GitProvenance provenance, Log logger) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                byte[] key = (head + '\n').getBytes(UTF_8);
+                byte[] value = PomCacheMapper.MAPPER.writeValueAsBytes(provenance);
+                byte[] bytes = Arrays.copyOf(key, key.length + value.length);
+                System.arraycopy(value, 0, bytes, key.length, value.length);
+                Files.write(tmp, bytes);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            logger.debug("Unable to persist the git provenance", e);
+        }
+    }
+}
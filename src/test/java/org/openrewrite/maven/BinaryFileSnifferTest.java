@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinaryFileSnifferTest {
+
+    @Test
+    void textIsNotBinary(@TempDir Path dir) throws IOException {
+        Path file = Files.writeString(dir.resolve("application.yml"), "spring:\n  application:\n    name: test\n");
+        assertThat(BinaryFileSniffer.isBinary(file)).isFalse();
+    }
+
+    @Test
+    void emptyFileIsNotBinary(@TempDir Path dir) throws IOException {
+        Path file = Files.write(dir.resolve("empty.txt"), new byte[0]);
+        assertThat(BinaryFileSniffer.isBinary(file)).isFalse();
+    }
+
+    @Test
+    void magicNumberIsBinary(@TempDir Path dir) throws IOException {
+        Path file = Files.write(dir.resolve("logo.txt"), new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n'});
+        assertThat(BinaryFileSniffer.isBinary(file)).isTrue();
+    }
+
+    @Test
+    void nulByteIsBinary(@TempDir Path dir) throws IOException {
+        Path file = Files.write(dir.resolve("fixture.json"), new byte[]{'{', '}', 0, 1, 2});
+        assertThat(BinaryFileSniffer.isBinary(file)).isTrue();
+    }
+
+    @Test
+    void utf16TextIsNotBinary(@TempDir Path dir) throws IOException {
+        Path file = Files.write(dir.resolve("messages.properties"), "﻿key=value".getBytes(StandardCharsets.UTF_16LE));
+        assertThat(BinaryFileSniffer.isBinary(file)).isFalse();
+    }
+}
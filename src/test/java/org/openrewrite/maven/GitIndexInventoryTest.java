@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.jgit.api.Git;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GitIndexInventoryTest {
+
+    @Test
+    void listsTrackedAndNewFilesButNotDeletedOnes(@TempDir Path dir) throws Exception {
+        try (Git git = Git.init().setDirectory(dir.toFile()).call()) {
+            Path sources = Files.createDirectories(dir.resolve("src/main/java/com/acme"));
+            Files.writeString(sources.resolve("Kept.java"), "class Kept {}");
+            Files.writeString(sources.resolve("Deleted.java"), "class Deleted {}");
+            Files.writeString(sources.resolve("notes.txt"), "not a source");
+            Files.createDirectories(dir.resolve("src/main/java/com/other"));
+            Files.writeString(dir.resolve("src/main/java/com/other/Other.java"), "class Other {}");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("initial").setSign(false).call();
+
+            Files.delete(sources.resolve("Deleted.java"));
+            Files.createDirectories(sources.resolve("added"));
+            Files.writeString(sources.resolve("added/Added.java"), "class Added {}");
+
+            GitIndexInventory inventory = new GitIndexInventory(git.getRepository(), git.getRepository().readDirCache());
+
+            assertThat(inventory.listFiles(dir.resolve("src/main/java"), ".java")).containsExactlyInAnyOrder(
+                    sources.resolve("Kept.java"),
+                    sources.resolve("added/Added.java"),
+                    dir.resolve("src/main/java/com/other/Other.java"));
+            assertThat(inventory.listFiles(dir.resolve("src/test/java"), ".java")).isNull();
+        }
+    }
+
+    @Test
+    void listsUntrackedFilesOnceTheIndexIsWrittenAgain(@TempDir Path dir) throws Exception {
+        try (Git git = Git.init().setDirectory(dir.toFile()).call()) {
+            Path sources = Files.createDirectories(dir.resolve("src/main/java"));
+            Files.writeString(sources.resolve("A.java"), "class A {}");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("initial").setSign(false).call();
+
+            Files.writeString(sources.resolve("B.java"), "class B {}");
+            // an unrelated change rewrites the index after the untracked file was created
+            Files.createDirectories(dir.resolve("other"));
+            Files.writeString(dir.resolve("other/y.txt"), "y");
+            git.add().addFilepattern("other/y.txt").call();
+            Files.setLastModifiedTime(sources, FileTime.fromMillis(git.getRepository().getIndexFile().lastModified() - 10_000));
+
+            GitIndexInventory inventory = new GitIndexInventory(git.getRepository(), git.getRepository().readDirCache());
+
+            assertThat(inventory.listFiles(sources, ".java")).containsExactlyInAnyOrder(
+                    sources.resolve("A.java"),
+                    sources.resolve("B.java"));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.text.ChangeText;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IncrementalBuildStateTest {
+
+    @Test
+    void allFilesAreParsedWithoutSnapshot(@TempDir Path dir) throws IOException {
+        MavenProject project = compiledProject(dir);
+
+        assertThat(IncrementalBuildState.load(List.of(project), "recipes", new SystemStreamLog()).changedPaths()).isNull();
+    }
+
+    @Test
+    void allFilesAreParsedWithoutCompilerState(@TempDir Path dir) throws IOException {
+        MavenProject project = compiledProject(dir);
+        IncrementalBuildState.load(List.of(project), "recipes", new SystemStreamLog()).save();
+        Files.delete(dir.resolve("target/maven-status/maven-compiler-plugin/compile/default-compile/inputFiles.lst"));
+
+        assertThat(IncrementalBuildState.load(List.of(project), "recipes", new SystemStreamLog()).changedPaths()).isNull();
+    }
+
+    @Test
+    void onlyFilesChangedSinceLastRunAreParsed(@TempDir Path dir) throws IOException {
+        MavenProject project = compiledProject(dir);
+        IncrementalBuildState.load(List.of(project), "recipes", new SystemStreamLog()).save();
+
+        Path changed = dir.resolve("src/main/java/B.java");
+        Files.writeString(changed, "class B { int i; }");
+        Files.setLastModifiedTime(changed, FileTime.fromMillis(Files.getLastModifiedTime(changed).toMillis() + 2000));
+
+        assertThat(IncrementalBuildState.load(List.of(project), "recipes", new SystemStreamLog()).changedPaths())
+                .containsExactly(changed.toAbsolutePath().normalize());
+    }
+
+    @Test
+    void allFilesAreParsedWhenTheConfigurationChanged(@TempDir Path dir) throws IOException {
+        MavenProject project = compiledProject(dir);
+        IncrementalBuildState.load(List.of(project), "recipes", new SystemStreamLog()).save();
+
+        assertThat(IncrementalBuildState.load(List.of(project), "other recipes", new SystemStreamLog()).changedPaths()).isNull();
+        assertThat(IncrementalBuildState.load(List.of(project), "recipes", new SystemStreamLog()).changedPaths()).isEmpty();
+    }
+
+    @Test
+    void configurationCoversTheRecipeOptions() {
+        ChangeText hello = new ChangeText("hello");
+        ChangeText world = new ChangeText("world");
+
+        assertThat(IncrementalBuildState.configuration(hello, List.of(), List.of()))
+                .isEqualTo(IncrementalBuildState.configuration(new ChangeText("hello"), List.of(), List.of()))
+                .isNotEqualTo(IncrementalBuildState.configuration(world, List.of(), List.of()))
+                .isNotEqualTo(IncrementalBuildState.configuration(hello, List.of("toText=world"), List.of()));
+    }
+
+    private static MavenProject compiledProject(Path dir) throws IOException {
+        Files.writeString(dir.resolve("pom.xml"), "<project/>");
+        Path sources = Files.createDirectories(dir.resolve("src/main/java"));
+        Path a = Files.writeString(sources.resolve("A.java"), "class A {}");
+        Path b = Files.writeString(sources.resolve("B.java"), "class B {}");
+        Path status = Files.createDirectories(dir.resolve("target/maven-status/maven-compiler-plugin/compile/default-compile"));
+        Files.write(status.resolve("inputFiles.lst"), List.of(a.toString(), b.toString()));
+
+        MavenProject project = new MavenProject();
+        project.setFile(dir.resolve("pom.xml").toFile());
+        project.getBuild().setDirectory(dir.resolve("target").toString());
+        project.addCompileSourceRoot(sources.toString());
+        return project;
+    }
+}
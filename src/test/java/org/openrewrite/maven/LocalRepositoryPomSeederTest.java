@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.maven.tree.MavenRepository;
+import org.openrewrite.maven.tree.Pom;
+import org.openrewrite.maven.tree.ResolvedGroupArtifactVersion;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalRepositoryPomSeederTest {
+
+    @Test
+    void seedsResolvedArtifactsWithTheirParentsAndBoms(@TempDir Path localRepository) throws Exception {
+        writePom(localRepository, "org.example", "lib", "1.0", """
+                <project>
+                    <parent>
+                        <groupId>org.example</groupId>
+                        <artifactId>lib-parent</artifactId>
+                        <version>2.0</version>
+                    </parent>
+                    <artifactId>lib</artifactId>
+                    <version>1.0</version>
+                    <dependencyManagement>
+                        <dependencies>
+                            <dependency>
+                                <groupId>org.example</groupId>
+                                <artifactId>bom</artifactId>
+                                <version>3.0</version>
+                                <type>pom</type>
+                                <scope>import</scope>
+                            </dependency>
+                        </dependencies>
+                    </dependencyManagement>
+                </project>
+                """);
+        writePom(localRepository, "org.example", "lib-parent", "2.0", """
+                <project>
+                    <groupId>org.example</groupId>
+                    <artifactId>lib-parent</artifactId>
+                    <version>2.0</version>
+                    <packaging>pom</packaging>
+                </project>
+                """);
+        writePom(localRepository, "org.example", "bom", "3.0", """
+                <project>
+                    <groupId>org.example</groupId>
+                    <artifactId>bom</artifactId>
+                    <version>3.0</version>
+                    <packaging>pom</packaging>
+                </project>
+                """);
+
+        MavenExecutionContextView ctx = MavenExecutionContextView.view(new InMemoryExecutionContext());
+        MavenRepository local = MavenRepository.builder().id("local").uri(localRepository.toUri().toString()).build();
+        ctx.setLocalRepository(local);
+        MavenProject project = new MavenProject();
+        project.setArtifacts(Set.of(
+                artifact("org.example", "lib", "1.0"),
+                artifact("org.example", "missing", "1.0"),
+                artifact("org.example", "snapshot", "1.0-SNAPSHOT")));
+
+        LocalRepositoryPomSeeder seeder = LocalRepositoryPomSeeder.create(ctx);
+        assertThat(seeder).isNotNull();
+        seeder.seed(project);
+
+        assertThat(seeder.getSeeded()).isEqualTo(3);
+        for (Map.Entry<String, String> seeded : Map.of("lib", "1.0", "lib-parent", "2.0", "bom", "3.0").entrySet()) {
+            String artifactId = seeded.getKey();
+            String version = seeded.getValue();
+            Optional<Pom> pom = ctx.getPomCache().getPom(new ResolvedGroupArtifactVersion(local.getUri(), "org.example", artifactId, version, version));
+            assertThat(pom).isNotNull().isPresent();
+            assertThat(pom.get().getArtifactId()).isEqualTo(artifactId);
+        }
+    }
+
+    private static Artifact artifact(String groupId, String artifactId, String version) {
+        return new DefaultArtifact(groupId, artifactId, version, "compile", "jar", null, new DefaultArtifactHandler("jar"));
+    }
+
+    private static void writePom(Path localRepository, String groupId, String artifactId, String version, String pom) throws Exception {
+        Path dir = localRepository.resolve(groupId.replace('.', '/')).resolve(artifactId).resolve(version);
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve(artifactId + '-' + version + ".pom"), pom);
+    }
+}
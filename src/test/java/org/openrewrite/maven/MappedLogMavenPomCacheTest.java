@@ -0,0 +1,115 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.maven.internal.RawPom;
+import org.openrewrite.maven.tree.MavenRepository;
+import org.openrewrite.maven.tree.Pom;
+import org.openrewrite.maven.tree.ResolvedGroupArtifactVersion;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedLogMavenPomCacheTest {
+    private static final MavenRepository REPOSITORY = MavenRepository.builder().id("central").uri("https://repo.example.com").build();
+
+    @Test
+    void survivesReopeningAndTornWrites(@TempDir Path dir) throws IOException {
+        ResolvedGroupArtifactVersion lib = gav("lib");
+        ResolvedGroupArtifactVersion missing = gav("missing");
+        ResolvedGroupArtifactVersion torn = gav("torn");
+        try (MappedLogMavenPomCache cache = new MappedLogMavenPomCache(dir)) {
+            cache.putPom(lib, pom(lib));
+            cache.putPom(missing, null);
+            cache.putPom(torn, pom(torn));
+        }
+        // a crash in the middle of writing the last record
+        Path log = dir.resolve("poms.log");
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(log) - 10);
+        }
+
+        try (MappedLogMavenPomCache cache = new MappedLogMavenPomCache(dir)) {
+            Optional<Pom> cached = cache.getPom(lib);
+            assertThat(cached).isNotNull().isPresent();
+            assertThat(cached.get()).isEqualTo(pom(lib));
+            assertThat(cache.getPom(missing)).isNotNull().isEmpty();
+            assertThat(cache.getPom(torn)).isNull();
+
+            // appended after the log was mapped
+            cache.putPom(torn, pom(torn));
+            assertThat(cache.getPom(torn)).isNotNull().contains(pom(torn));
+        }
+    }
+
+    @Test
+    void compactsSupersededRecords(@TempDir Path dir) throws IOException {
+        ResolvedGroupArtifactVersion lib = gav("lib");
+        try (MappedLogMavenPomCache cache = new MappedLogMavenPomCache(dir)) {
+            for (int i = 0; i < 5_000; i++) {
+                cache.putPom(lib, pom(lib));
+            }
+        }
+        long before = Files.size(dir.resolve("poms.log"));
+
+        try (MappedLogMavenPomCache cache = new MappedLogMavenPomCache(dir)) {
+            assertThat(Files.size(dir.resolve("poms.log"))).isLessThan(before / 100);
+            assertThat(cache.getPom(lib)).isNotNull().contains(pom(lib));
+        }
+    }
+
+    @Test
+    void isLockedWhileOpen(@TempDir Path dir) throws IOException {
+        try (MappedLogMavenPomCache cache = new MappedLogMavenPomCache(dir)) {
+            assertThatThrownBy(() -> new MappedLogMavenPomCache(dir)).isInstanceOf(IOException.class);
+            assertThat(cache.getPom(gav("lib"))).isNull();
+        }
+    }
+
+    @Test
+    void writeFailuresAreLoggedRatherThanThrown(@TempDir Path dir) throws IOException {
+        MappedLogMavenPomCache cache = new MappedLogMavenPomCache(dir, new SystemStreamLog());
+        // closed, so that writing to the log fails
+        cache.close();
+
+        ResolvedGroupArtifactVersion lib = gav("lib");
+        assertThatCode(() -> cache.putPom(lib, pom(lib))).doesNotThrowAnyException();
+    }
+
+    private static ResolvedGroupArtifactVersion gav(String artifactId) {
+        return new ResolvedGroupArtifactVersion(REPOSITORY.getUri(), "org.example", artifactId, "1.0", null);
+    }
+
+    private static Pom pom(ResolvedGroupArtifactVersion gav) {
+        String xml = "<project><groupId>org.example</groupId><artifactId>" + gav.getArtifactId() + "</artifactId>" +
+                     "<version>1.0</version><properties><java.version>17</java.version></properties></project>";
+        return RawPom.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), null)
+                .toPom(null, REPOSITORY).withGav(gav);
+    }
+}
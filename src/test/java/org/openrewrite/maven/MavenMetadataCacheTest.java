@@ -0,0 +1,115 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.ipc.http.HttpSender;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MavenMetadataCacheTest {
+    private static final String METADATA = "https://repo.example.com/org/example/lib/maven-metadata.xml";
+
+    @Test
+    void downloadsConcurrentRequestsOnce() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        HttpSender sender = new MavenMetadataCache(null, Duration.ZERO).wrap(request -> {
+            requests.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return response(200, "<metadata/>");
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> bodies = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                bodies.add(executor.submit(() -> body(sender, METADATA)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> body : bodies) {
+                assertThat(body.get()).isEqualTo("<metadata/>");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(body(sender, METADATA)).isEqualTo("<metadata/>");
+        assertThat(requests).hasValue(1);
+    }
+
+    @Test
+    void persistsMetadataUntilStale(@TempDir Path dir) throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        HttpSender repository = request -> {
+            requests.incrementAndGet();
+            return response(200, "<metadata/>");
+        };
+
+        body(new MavenMetadataCache(dir, Duration.ofHours(1)).wrap(repository), METADATA);
+        MavenMetadataCache nextRun = new MavenMetadataCache(dir, Duration.ofHours(1));
+        assertThat(body(nextRun.wrap(repository), METADATA)).isEqualTo("<metadata/>");
+        assertThat(requests).hasValue(1);
+        assertThat(nextRun.getDownloads()).isZero();
+
+        body(new MavenMetadataCache(dir, Duration.ZERO).wrap(repository), METADATA);
+        assertThat(requests).hasValue(2);
+    }
+
+    @Test
+    void retriesServerErrors() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        HttpSender sender = new MavenMetadataCache(null, Duration.ZERO).wrap(request ->
+                response(requests.incrementAndGet() == 1 ? 503 : 200, "<metadata/>"));
+
+        try (HttpSender.Response response = sender.send(sender.get(METADATA).build())) {
+            assertThat(response.getCode()).isEqualTo(503);
+        }
+        assertThat(body(sender, METADATA)).isEqualTo("<metadata/>");
+        assertThat(body(sender, METADATA)).isEqualTo("<metadata/>");
+        assertThat(requests).hasValue(2);
+    }
+
+    private static HttpSender.Response response(int code, String body) {
+        return new HttpSender.Response(code, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), () -> {
+        });
+    }
+
+    private static String body(HttpSender sender, String url) throws IOException {
+        try (HttpSender.Response response = sender.send(sender.get(url).build())) {
+            return new String(response.getBodyAsBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -16,15 +16,24 @@
 package org.openrewrite.maven;
 
 import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Model;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.model.PluginManagement;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.jgit.api.Git;
 import org.openrewrite.java.marker.JavaVersion;
 
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -187,4 +196,89 @@ class MavenMojoProjectParserTest {
         assertThat(charset).isPresent();
         assertThat(charset.get().name()).isEqualTo("UTF-8");
     }
+
+    @DisplayName("A source root shared by several projects is owned by the project that contains it")
+    @Test
+    void sharedSourceRootIsOwnedByContainingProject(@TempDir Path dir) {
+        MavenProject api = project(dir.resolve("api"), "api");
+        MavenProject impl = project(dir.resolve("impl"), "impl");
+        MavenProject other = project(dir.resolve("other"), "other");
+        Path shared = dir.resolve("api/src/shared/java");
+        api.addCompileSourceRoot(shared.toString());
+        impl.addCompileSourceRoot("../api/src/shared/java");
+        other.addTestCompileSourceRoot(shared.toString());
+        impl.addCompileSourceRoot(dir.resolve("impl/src/main/java").toString());
+
+        Map<Path, MavenProject> owners = MavenMojoProjectParser.sharedSourceRootOwners(List.of(impl, other, api));
+
+        assertThat(owners).containsOnlyKeys(shared);
+        assertThat(owners.get(shared)).isSameAs(api);
+    }
+
+    @DisplayName("POMs are resolved after their in-reactor parents and imported BOMs")
+    @Test
+    void pomResolutionLevelsFollowParentsAndBoms(@TempDir Path dir) {
+        MavenProject parent = project(dir, "parent");
+        parent.setGroupId("org.example");
+        MavenProject bom = project(dir.resolve("bom"), "bom");
+        bom.setParent(parent);
+        bom.setGroupId("org.example");
+        MavenProject app = project(dir.resolve("app"), "app");
+        app.setGroupId("org.example");
+        app.setParent(parent);
+        Model appModel = new Model();
+        appModel.setDependencyManagement(new DependencyManagement());
+        Dependency bomImport = new Dependency();
+        bomImport.setGroupId("${project.groupId}");
+        bomImport.setArtifactId("bom");
+        bomImport.setType("pom");
+        bomImport.setScope("import");
+        appModel.getDependencyManagement().addDependency(bomImport);
+        app.setOriginalModel(appModel);
+        Path external = dir.resolve("external/pom.xml");
+
+        Map<Path, MavenProject> projectsByPath = Map.of(
+                parent.getFile().toPath(), parent,
+                bom.getFile().toPath(), bom,
+                app.getFile().toPath(), app);
+        List<List<Path>> levels = MavenMojoProjectParser.pomResolutionLevels(
+                List.of(app.getFile().toPath(), external, bom.getFile().toPath(), parent.getFile().toPath()), projectsByPath);
+
+        assertThat(levels).containsExactly(
+                List.of(external, parent.getFile().toPath()),
+                List.of(bom.getFile().toPath()),
+                List.of(app.getFile().toPath()));
+    }
+
+    private static MavenProject project(Path basedir, String artifactId) {
+        MavenProject project = new MavenProject();
+        project.setArtifactId(artifactId);
+        project.setFile(basedir.resolve("pom.xml").toFile());
+        project.getBuild().setDirectory(basedir.resolve("target").toString());
+        return project;
+    }
+
+    @DisplayName("Changed paths include modified and new files but not unchanged, deleted or ignored ones")
+    @Test
+    void changedPathsSinceRef(@TempDir Path dir) throws Exception {
+        try (Git git = Git.init().setDirectory(dir.toFile()).call()) {
+            Files.writeString(dir.resolve(".gitignore"), "target/\n");
+            Files.writeString(dir.resolve("Unchanged.java"), "class Unchanged {}");
+            Files.writeString(dir.resolve("Modified.java"), "class Modified {}");
+            Files.writeString(dir.resolve("Deleted.java"), "class Deleted {}");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("initial").setSign(false).call();
+
+            Files.writeString(dir.resolve("Modified.java"), "class Modified { int i; }");
+            Files.delete(dir.resolve("Deleted.java"));
+            Files.writeString(dir.resolve("Added.java"), "class Added {}");
+            Files.createDirectories(dir.resolve("target"));
+            Files.writeString(dir.resolve("target/Generated.java"), "class Generated {}");
+
+            assertThat(MavenMojoProjectParser.changedPaths(git.getRepository(), "HEAD"))
+                    .containsExactlyInAnyOrder(
+                            dir.resolve("Modified.java").toAbsolutePath().normalize(),
+                            dir.resolve("Added.java").toAbsolutePath().normalize());
+        }
+    }
 }
@@ -15,22 +15,27 @@
  */
 package org.openrewrite.maven;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.maven.plugin.logging.SystemStreamLog;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.maven.cache.CompositeMavenPomCache;
 import org.openrewrite.maven.cache.InMemoryMavenPomCache;
 import org.openrewrite.maven.cache.MavenPomCache;
+import org.openrewrite.maven.tree.ResolvedGroupArtifactVersion;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 class MavenPomCacheBuilderTest {
 
     @Test
-    void fallsBackToInMemoryCacheWhenRocksdbFails(@TempDir Path workspace) throws IOException {
+    void fallsBackToMappedLogWhenRocksdbFails(@TempDir Path workspace) throws IOException {
         // given a workspace where Rocksdb init is forced to fail
         // (a regular file where RocksdbMavenPomCache expects to create its ".rewrite-cache" directory)
         Files.createFile(workspace.resolve(".rewrite-cache"));
@@ -38,7 +43,59 @@ class MavenPomCacheBuilderTest {
         // when
         MavenPomCache cache = new MavenPomCacheBuilder(new SystemStreamLog()).build(workspace.toString());
 
+        // then POMs are still persisted, in the memory-mapped log
+        assertThat(cache).isInstanceOf(CompositeMavenPomCache.class);
+        assertThat(workspace.resolve(".rewrite-cache-log").resolve("poms.log")).exists();
+    }
+
+    @Test
+    void fallsBackToInMemoryCacheWhenNoPersistentCacheCanBeCreated(@TempDir Path workspace) throws IOException {
+        // given a workspace where neither Rocksdb nor the memory-mapped log can create their directories
+        Files.createFile(workspace.resolve(".rewrite-cache"));
+        Files.createFile(workspace.resolve(".rewrite-cache-log"));
+
+        // when
+        MavenPomCache cache = new MavenPomCacheBuilder(new SystemStreamLog()).build(workspace.toString());
+
         // then build() owns the fallback and returns an InMemory cache rather than null
         assertThat(cache).isInstanceOf(InMemoryMavenPomCache.class);
     }
+
+    @Test
+    void publishesCacheStatisticsOfTheLiveCache(@TempDir Path workspace) throws Exception {
+        Files.createFile(workspace.resolve(".rewrite-cache"));
+        Files.createFile(workspace.resolve(".rewrite-cache-log"));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            ResolvedGroupArtifactVersion gav = new ResolvedGroupArtifactVersion("https://repo.example.com", "org.example", "lib", "1.0", null);
+            MavenPomCacheBuilder builder = new MavenPomCacheBuilder(new SystemStreamLog())
+                    .maximumSize(10)
+                    .expireAfterAccess(Duration.ofMinutes(5));
+            MavenPomCache cache = builder.build(workspace.toString());
+            assertThat(builder.inMemory()).isSameAs(cache);
+            cache.getPom(gav);
+            cache.putPom(gav, null);
+            cache.getPom(gav);
+            assertThat(gets(registry, "miss")).isEqualTo(1);
+            assertThat(gets(registry, "hit")).isEqualTo(1);
+
+            // other bounds rebuild the cache, and its meters
+            MavenPomCache rebuilt = new MavenPomCacheBuilder(new SystemStreamLog())
+                    .maximumSize(20)
+                    .build(workspace.toString());
+            assertThat(rebuilt).isNotSameAs(cache);
+            assertThat(rebuilt.getPom(gav)).isNull();
+            assertThat(gets(registry, "miss")).isEqualTo(1);
+            assertThat(gets(registry, "hit")).isZero();
+            assertThat(registry.find("cache.evictions").tag("cache", "Maven POMs - rewrite-maven-plugin").functionCounters()).hasSize(1);
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
+    private static double gets(SimpleMeterRegistry registry, String result) {
+        return registry.get("cache.gets").tag("cache", "Maven POMs - rewrite-maven-plugin").tag("result", result)
+                .functionCounter().count();
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.ipc.http.HttpSender;
+
+import javax.net.ssl.SSLHandshakeException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NegativeResolutionCacheTest {
+
+    @Test
+    void skipsMissingArtifactsAndUnreachableHostsInLaterRuns(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("negative-cache.properties");
+        AtomicInteger requests = new AtomicInteger();
+        HttpSender repository = request -> {
+            requests.incrementAndGet();
+            if ("unreachable.example.com".equals(request.getUrl().getHost())) {
+                throw new UncheckedIOException(new ConnectException("Connection refused"));
+            }
+            return new HttpSender.Response(404, new ByteArrayInputStream(new byte[0]), () -> {
+            });
+        };
+
+        NegativeResolutionCache firstRun = NegativeResolutionCache.load(file, Duration.ofHours(1), Duration.ofHours(1));
+        HttpSender sender = firstRun.wrap(repository);
+        send(sender, "https://repo.example.com/org/example/missing/1.0/missing-1.0.pom");
+        send(sender, "https://repo.example.com/org/example/missing/1.0-SNAPSHOT/maven-metadata.xml");
+        assertThatThrownBy(() -> send(sender, "https://unreachable.example.com/org/example/lib/1.0/lib-1.0.pom"))
+                .isInstanceOf(UncheckedIOException.class);
+        firstRun.save();
+        assertThat(requests).hasValue(3);
+
+        NegativeResolutionCache secondRun = NegativeResolutionCache.load(file, Duration.ofHours(1), Duration.ofHours(1));
+        HttpSender cached = secondRun.wrap(repository);
+        assertThat(send(cached, "https://repo.example.com/org/example/missing/1.0/missing-1.0.pom")).isEqualTo(404);
+        assertThatThrownBy(() -> send(cached, "https://unreachable.example.com/org/example/other/1.0/other-1.0.pom"))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThat(requests).hasValue(3);
+        send(cached, "https://repo.example.com/org/example/missing/1.0-SNAPSHOT/maven-metadata.xml");
+        assertThat(requests).hasValue(4);
+        assertThat(secondRun.getSkippedMissing()).isEqualTo(1);
+        assertThat(secondRun.getSkippedUnreachable()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotRememberHostsThatFailedOnceConnected(@TempDir Path dir) throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        HttpSender repository = request -> {
+            if (requests.incrementAndGet() == 1) {
+                throw new UncheckedIOException(new SocketTimeoutException("Read timed out"));
+            }
+            return new HttpSender.Response(200, new ByteArrayInputStream(new byte[0]), () -> {
+            });
+        };
+
+        NegativeResolutionCache cache = NegativeResolutionCache.load(dir.resolve("negative-cache.properties"),
+                Duration.ofHours(1), Duration.ofHours(1));
+        HttpSender sender = cache.wrap(repository);
+        assertThatThrownBy(() -> send(sender, "https://repo.example.com/org/example/lib/1.0/lib-1.0.pom"))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThat(send(sender, "https://repo.example.com/org/example/other/1.0/other-1.0.pom")).isEqualTo(200);
+        assertThat(requests).hasValue(2);
+        assertThat(cache.getSkippedUnreachable()).isZero();
+
+        assertThat(NegativeResolutionCache.isUnreachable(new UncheckedIOException(new SocketTimeoutException("connect timed out")))).isTrue();
+        assertThat(NegativeResolutionCache.isUnreachable(new UncheckedIOException(new UnknownHostException("repo.example.com")))).isTrue();
+        assertThat(NegativeResolutionCache.isUnreachable(new UncheckedIOException(new SSLHandshakeException("handshake failed")))).isFalse();
+    }
+
+    @Test
+    void forgetsExpiredEntries(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("negative-cache.properties");
+        NegativeResolutionCache firstRun = NegativeResolutionCache.load(file, Duration.ZERO, Duration.ZERO);
+        send(firstRun.wrap(request -> new HttpSender.Response(404, new ByteArrayInputStream(new byte[0]), () -> {
+        })), "https://repo.example.com/org/example/missing/1.0/missing-1.0.pom");
+        firstRun.save();
+
+        AtomicInteger requests = new AtomicInteger();
+        HttpSender sender = NegativeResolutionCache.load(file, Duration.ZERO, Duration.ZERO).wrap(request -> {
+            requests.incrementAndGet();
+            return new HttpSender.Response(200, new ByteArrayInputStream(new byte[0]), () -> {
+            });
+        });
+        assertThat(send(sender, "https://repo.example.com/org/example/missing/1.0/missing-1.0.pom")).isEqualTo(200);
+        assertThat(requests).hasValue(1);
+    }
+
+    private static int send(HttpSender sender, String url) {
+        try (HttpSender.Response response = sender.send(sender.get(url).build())) {
+            return response.getCode();
+        }
+    }
+}
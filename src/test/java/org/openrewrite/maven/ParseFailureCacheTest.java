@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.ParseExceptionResult;
+import org.openrewrite.Parser;
+import org.openrewrite.SourceFile;
+import org.openrewrite.quark.Quark;
+import org.openrewrite.text.PlainTextParser;
+import org.openrewrite.tree.ParseError;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParseFailureCacheTest {
+
+    private final Parser parser = PlainTextParser.builder().build();
+
+    @Test
+    void knownFailureIsNotParsedAgain(@TempDir Path dir) throws IOException {
+        Path file = Files.writeString(dir.resolve("broken.txt"), "not parseable");
+        Path cacheFile = dir.resolve("cache").resolve(ParseFailureCache.FILE_NAME);
+
+        new ParseFailureCache(cacheFile, false).record(parser, parseError(file, dir), dir);
+
+        SourceFile knownFailure = new ParseFailureCache(cacheFile, false).knownFailure(parser, file, dir);
+        assertThat(knownFailure).isInstanceOf(Quark.class);
+        assertThat(knownFailure.getSourcePath()).isEqualTo(Path.of("broken.txt"));
+        assertThat(knownFailure.getMarkers().findFirst(ParseExceptionResult.class))
+                .hasValueSatisfying(e -> assertThat(e.getMessage()).contains("boom"));
+    }
+
+    @Test
+    void changedContentIsParsedAgain(@TempDir Path dir) throws IOException {
+        Path file = Files.writeString(dir.resolve("broken.txt"), "not parseable");
+        Path cacheFile = dir.resolve(ParseFailureCache.FILE_NAME);
+        new ParseFailureCache(cacheFile, false).record(parser, parseError(file, dir), dir);
+
+        Files.writeString(file, "now parseable");
+
+        assertThat(new ParseFailureCache(cacheFile, false).knownFailure(parser, file, dir)).isNull();
+    }
+
+    @Test
+    void reparseKnownFailuresIgnoresTheCache(@TempDir Path dir) throws IOException {
+        Path file = Files.writeString(dir.resolve("broken.txt"), "not parseable");
+        Path cacheFile = dir.resolve(ParseFailureCache.FILE_NAME);
+        new ParseFailureCache(cacheFile, false).record(parser, parseError(file, dir), dir);
+
+        assertThat(new ParseFailureCache(cacheFile, true).knownFailure(parser, file, dir)).isNull();
+    }
+
+    private ParseError parseError(Path file, Path relativeTo) {
+        return ParseError.build(parser, Parser.Input.fromFile(file), relativeTo, new InMemoryExecutionContext(),
+                new IllegalStateException("boom"));
+    }
+}
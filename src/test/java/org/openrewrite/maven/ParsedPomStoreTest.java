@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParsedPomStoreTest {
+
+    @Test
+    void reusesDocumentsUntilTheirPomChanges(@TempDir Path dir) throws IOException {
+        Path parent = dir.resolve("pom.xml");
+        Files.writeString(parent, """
+          <project>
+            <groupId>org.example</groupId>
+            <artifactId>parent</artifactId>
+            <version>1.0</version>
+            <packaging>pom</packaging>
+            <modules><module>child</module></modules>
+          </project>
+          """);
+        Path child = dir.resolve("child/pom.xml");
+        Files.createDirectories(child.getParent());
+        Files.writeString(child, """
+          <project>
+            <parent>
+              <groupId>org.example</groupId>
+              <artifactId>parent</artifactId>
+              <version>1.0</version>
+            </parent>
+            <artifactId>child</artifactId>
+          </project>
+          """);
+        List<Path> poms = List.of(parent, child);
+        List<SourceFile> documents = MavenParser.builder().build()
+                .parse(poms, dir, new InMemoryExecutionContext(Throwable::printStackTrace))
+                .collect(toList());
+
+        ParsedPomStore store = new ParsedPomStore();
+        assertThat(store.get(poms)).isNull();
+        store.put(dir, documents);
+        assertThat(store.get(poms)).containsExactlyElementsOf(documents);
+        assertThat(store.get(List.of(child))).containsExactly(documents.get(1));
+
+        Files.writeString(parent, Files.readString(parent).replace("1.0", "1.1"));
+        assertThat(store.get(poms)).isNull();
+        assertThat(store.get(List.of(child))).isNotNull();
+    }
+}
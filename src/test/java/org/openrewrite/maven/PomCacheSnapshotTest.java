@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.maven.internal.RawPom;
+import org.openrewrite.maven.tree.MavenRepository;
+import org.openrewrite.maven.tree.Pom;
+import org.openrewrite.maven.tree.ResolvedGroupArtifactVersion;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PomCacheSnapshotTest {
+    private static final MavenRepository REPOSITORY = MavenRepository.builder().id("central").uri("https://repo.example.com").build();
+    private static final ProfiledRocksdbMavenPomCache.Profile PROFILE = new ProfiledRocksdbMavenPomCache.Profile(
+            "lz4", 1 << 20, 10, Duration.ofHours(1), Duration.ofHours(1), 1L << 30);
+
+    @Test
+    void roundTripsPersistentCaches(@TempDir Path ci, @TempDir Path agent) throws Exception {
+        ResolvedGroupArtifactVersion lib = gav("lib");
+        ResolvedGroupArtifactVersion missing = gav("missing");
+        try (MappedLogMavenPomCache cache = new MappedLogMavenPomCache(ci.resolve(".rewrite-cache-log"))) {
+            cache.putPom(lib, pom(lib));
+            cache.putPom(missing, null);
+        }
+        try (ProfiledRocksdbMavenPomCache cache = new ProfiledRocksdbMavenPomCache(ci.resolve(".rewrite-pom-cache"), PROFILE, new SystemStreamLog())) {
+            cache.putPom(lib, pom(lib));
+        }
+
+        Path snapshot = ci.resolve("poms.snapshot");
+        assertThat(PomCacheSnapshot.export(ci, snapshot)).isGreaterThanOrEqualTo(3);
+        assertThat(PomCacheSnapshot.importInto(agent, snapshot)).isGreaterThanOrEqualTo(3);
+
+        try (MappedLogMavenPomCache cache = new MappedLogMavenPomCache(agent.resolve(".rewrite-cache-log"))) {
+            assertThat(cache.getPom(lib)).isNotNull().contains(pom(lib));
+            assertThat(cache.getPom(missing)).isNotNull().isEmpty();
+        }
+        try (ProfiledRocksdbMavenPomCache cache = new ProfiledRocksdbMavenPomCache(agent.resolve(".rewrite-pom-cache"), PROFILE, new SystemStreamLog())) {
+            assertThat(cache.getPom(lib)).isNotNull().contains(pom(lib));
+        }
+    }
+
+    @Test
+    void rejectsCorruptedSnapshotsWithoutImportingAnything(@TempDir Path ci, @TempDir Path agent) throws IOException {
+        ResolvedGroupArtifactVersion lib = gav("lib");
+        try (MappedLogMavenPomCache cache = new MappedLogMavenPomCache(ci.resolve(".rewrite-cache-log"))) {
+            cache.putPom(lib, pom(lib));
+        }
+        Path snapshot = ci.resolve("poms.snapshot");
+        PomCacheSnapshot.export(ci, snapshot);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(bytes, bytes.length - 12));
+
+        assertThatThrownBy(() -> PomCacheSnapshot.importInto(agent, snapshot)).isInstanceOf(IOException.class);
+        assertThat(agent.resolve(".rewrite-cache-log")).doesNotExist();
+    }
+
+    private static ResolvedGroupArtifactVersion gav(String artifactId) {
+        return new ResolvedGroupArtifactVersion(REPOSITORY.getUri(), "org.example", artifactId, "1.0", null);
+    }
+
+    private static Pom pom(ResolvedGroupArtifactVersion gav) {
+        String xml = "<project><groupId>org.example</groupId><artifactId>" + gav.getArtifactId() + "</artifactId>" +
+                     "<version>1.0</version><properties><java.version>17</java.version></properties></project>";
+        return RawPom.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), null)
+                .toPom(null, REPOSITORY).withGav(gav);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openrewrite.ipc.http.HttpSender;
+import org.openrewrite.ipc.http.HttpUrlConnectionSender;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PooledHttpSenderTest {
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private HttpServer server;
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void retriesUnavailableServer() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        start(exchange -> respond(exchange, requests.incrementAndGet() < 3 ? 503 : 200, "<project/>"));
+
+        HttpSender sender = new PooledHttpSender(new HttpUrlConnectionSender(), 4, 2, Duration.ofMillis(1));
+        try (HttpSender.Response response = sender.send(sender.get(url("/a.pom")).build())) {
+            assertThat(response.getCode()).isEqualTo(200);
+            assertThat(response.getBodyAsBytes()).asString(StandardCharsets.UTF_8).isEqualTo("<project/>");
+        }
+        assertThat(requests).hasValue(3);
+    }
+
+    @Test
+    void givesUpAfterRetries() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        start(exchange -> {
+            requests.incrementAndGet();
+            respond(exchange, 503, "");
+        });
+
+        HttpSender sender = new PooledHttpSender(new HttpUrlConnectionSender(), 4, 1, Duration.ofMillis(1));
+        try (HttpSender.Response response = sender.send(sender.get(url("/a.pom")).build())) {
+            assertThat(response.getCode()).isEqualTo(503);
+        }
+        assertThat(requests).hasValue(2);
+    }
+
+    @Test
+    void boundsRequestsInFlightPerHost() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        start(exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            respond(exchange, 200, "<project/>");
+        });
+
+        HttpSender sender = new PooledHttpSender(new HttpUrlConnectionSender(), 2, 0, Duration.ofMillis(1));
+        List<Future<Integer>> responses = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String path = "/" + i + ".pom";
+            responses.add(executor.submit(() -> {
+                try (HttpSender.Response response = sender.send(sender.get(url(path)).build())) {
+                    return response.getCode();
+                }
+            }));
+        }
+        for (Future<Integer> response : responses) {
+            assertThat(response.get()).isEqualTo(200);
+        }
+        assertThat(maxInFlight.get()).isBetween(1, 2);
+    }
+
+    @Test
+    void streamsBodiesOfUnknownLengthAndReleasesTheSlotOnceTheBodyIsRead() throws Exception {
+        start(exchange -> {
+            // chunked, so that the length of the body is not known up front
+            exchange.sendResponseHeaders(200, 0);
+            exchange.getResponseBody().write("artifact".getBytes(StandardCharsets.UTF_8));
+        });
+
+        HttpSender sender = new PooledHttpSender(new HttpUrlConnectionSender(), 1, 0, Duration.ofMillis(1));
+        HttpSender.Response first = sender.send(sender.get(url("/a.jar")).build());
+        Future<Integer> second = executor.submit(() -> {
+            try (HttpSender.Response response = sender.send(sender.get(url("/b.jar")).build())) {
+                return response.getCode();
+            }
+        });
+        Thread.sleep(200);
+        assertThat(second).isNotDone();
+
+        // reading the body closes it, but not the response
+        assertThat(first.getBodyAsBytes()).asString(StandardCharsets.UTF_8).isEqualTo("artifact");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(200);
+        first.close();
+    }
+
+    @Test
+    void failsRatherThanWaitingForeverForASlot() throws Exception {
+        start(exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            exchange.getResponseBody().write("artifact".getBytes(StandardCharsets.UTF_8));
+        });
+
+        HttpSender sender = new PooledHttpSender(new HttpUrlConnectionSender(), 1, 0, Duration.ofMillis(1), Duration.ofMillis(100));
+        try (HttpSender.Response first = sender.send(sender.get(url("/a.jar")).build())) {
+            assertThatThrownBy(() -> sender.send(sender.get(url("/b.jar")).build()))
+                    .isInstanceOf(UncheckedIOException.class)
+                    .hasMessageContaining("waiting for a free connection");
+            assertThat(first.getCode()).isEqualTo(200);
+        }
+    }
+
+    private void start(Handler handler) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            try {
+                handler.handle(exchange);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static void respond(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(code, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+}
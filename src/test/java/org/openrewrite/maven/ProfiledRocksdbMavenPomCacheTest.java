@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.eclipse.aether.DefaultSessionData;
+import org.eclipse.aether.SessionData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.maven.internal.RawPom;
+import org.openrewrite.maven.tree.MavenRepository;
+import org.openrewrite.maven.tree.Pom;
+import org.openrewrite.maven.tree.ResolvedGroupArtifactVersion;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfiledRocksdbMavenPomCacheTest {
+    private static final MavenRepository REPOSITORY = MavenRepository.builder().id("central").uri("https://repo.example.com").build();
+
+    @Test
+    void keepsReleasesAcrossExecutionsAndExpiresSnapshots(@TempDir Path dir) throws Exception {
+        ProfiledRocksdbMavenPomCache.Profile profile = new ProfiledRocksdbMavenPomCache.Profile(
+                "lz4", 1 << 20, 10, Duration.ZERO, Duration.ofHours(1), 1L << 30);
+        ResolvedGroupArtifactVersion release = gav("1.0");
+        ResolvedGroupArtifactVersion snapshot = gav("1.1-SNAPSHOT");
+        ResolvedGroupArtifactVersion missing = new ResolvedGroupArtifactVersion(REPOSITORY.getUri(), "org.example", "missing", "1.0", null);
+
+        try (ProfiledRocksdbMavenPomCache cache = new ProfiledRocksdbMavenPomCache(dir, profile, new SystemStreamLog())) {
+            cache.putPom(release, pom(release));
+            cache.putPom(snapshot, pom(snapshot));
+            cache.putPom(missing, null);
+        }
+
+        try (ProfiledRocksdbMavenPomCache cache = new ProfiledRocksdbMavenPomCache(dir, profile, new SystemStreamLog())) {
+            Optional<Pom> cached = cache.getPom(release);
+            assertThat(cached).isNotNull().isPresent();
+            assertThat(cached.get()).isEqualTo(pom(release));
+            assertThat(cache.getPom(missing)).isNotNull().isEmpty();
+            assertThat(cache.getPom(snapshot)).isNull();
+        }
+    }
+
+    @Test
+    void isSharedByTheExecutionsOfASessionAndClosedOnceItEnds(@TempDir Path dir) throws Exception {
+        ProfiledRocksdbMavenPomCache.Profile profile = new ProfiledRocksdbMavenPomCache.Profile(
+                "lz4", 1 << 20, 10, Duration.ofHours(1), Duration.ofHours(1), 1L << 30);
+        SessionData session = new DefaultSessionData();
+        ExecutionContext first = new InMemoryExecutionContext();
+        ExecutionContext second = new InMemoryExecutionContext();
+
+        ProfiledRocksdbMavenPomCache cache = ProfiledRocksdbMavenPomCache.acquire(session, dir, profile, new SystemStreamLog(), first);
+        assertThat(ProfiledRocksdbMavenPomCache.acquire(session, dir, profile, new SystemStreamLog(), second)).isSameAs(cache);
+        assertThat(ProfiledRocksdbMavenPomCache.acquire(session, dir, profile, new SystemStreamLog(), second)).isSameAs(cache);
+
+        // the last project started, but the other execution still holds the cache
+        ProfiledRocksdbMavenPomCache.release(first, true);
+        cache.putPom(gav("1.0"), pom(gav("1.0")));
+        ProfiledRocksdbMavenPomCache.release(second, false);
+
+        // closed, so a later execution opens it again
+        ExecutionContext third = new InMemoryExecutionContext();
+        try (ProfiledRocksdbMavenPomCache reopened = ProfiledRocksdbMavenPomCache.acquire(session, dir, profile, new SystemStreamLog(), third)) {
+            assertThat(reopened).isNotSameAs(cache);
+            assertThat(reopened.getPom(gav("1.0"))).isNotNull().isPresent();
+        }
+    }
+
+    @Test
+    void trimsTheOldestEntriesDownToTheMaximumSize(@TempDir Path dir) throws Exception {
+        ProfiledRocksdbMavenPomCache.Profile unbounded = new ProfiledRocksdbMavenPomCache.Profile(
+                "none", 1 << 20, 10, Duration.ofHours(1), Duration.ofHours(1), Long.MAX_VALUE);
+        try (ProfiledRocksdbMavenPomCache cache = new ProfiledRocksdbMavenPomCache(dir, unbounded, new SystemStreamLog())) {
+            for (int i = 0; i < 400; i++) {
+                if (i == 200) {
+                    Thread.sleep(20);
+                }
+                cache.putPom(gav(i), pom(gav(i)));
+            }
+        }
+        long size;
+        try (ProfiledRocksdbMavenPomCache cache = new ProfiledRocksdbMavenPomCache(dir, unbounded, new SystemStreamLog())) {
+            size = cache.size();
+        }
+
+        ProfiledRocksdbMavenPomCache.Profile bounded = new ProfiledRocksdbMavenPomCache.Profile(
+                "none", 1 << 20, 10, Duration.ofHours(1), Duration.ofHours(1), size / 2);
+        try (ProfiledRocksdbMavenPomCache cache = new ProfiledRocksdbMavenPomCache(dir, bounded, new SystemStreamLog())) {
+            cache.awaitTrimmed();
+            assertThat(cache.size()).isLessThanOrEqualTo(size / 2);
+            assertThat(cache.getPom(gav(0))).isNull();
+            assertThat(cache.getPom(gav(199))).isNull();
+            assertThat(cache.getPom(gav(399))).isNotNull().isPresent();
+        }
+    }
+
+    private static ResolvedGroupArtifactVersion gav(int artifact) {
+        return new ResolvedGroupArtifactVersion(REPOSITORY.getUri(), "org.example", "lib" + artifact, "1.0", null);
+    }
+
+    private static ResolvedGroupArtifactVersion gav(String version) {
+        return new ResolvedGroupArtifactVersion(REPOSITORY.getUri(), "org.example", "lib", version, null);
+    }
+
+    private static Pom pom(ResolvedGroupArtifactVersion gav) {
+        String xml = "<project><groupId>org.example</groupId><artifactId>" + gav.getArtifactId() + "</artifactId><version>" + gav.getVersion() +
+                     "</version><properties><java.version>17</java.version></properties></project>";
+        return RawPom.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), null)
+                .toPom(null, REPOSITORY).withGav(gav);
+    }
+}
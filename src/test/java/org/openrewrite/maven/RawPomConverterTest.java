@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.junit.jupiter.api.Test;
+import org.openrewrite.maven.internal.RawPom;
+import org.openrewrite.maven.tree.Pom;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RawPomConverterTest {
+
+    private static final String POM = """
+            <project>
+                <modelVersion>4.0.0</modelVersion>
+                <parent>
+                    <groupId>org.example</groupId>
+                    <artifactId>parent</artifactId>
+                    <version>1.0.0</version>
+                    <relativePath>../pom.xml</relativePath>
+                </parent>
+                <artifactId>app</artifactId>
+                <packaging>jar</packaging>
+                <name>App</name>
+                <properties>
+                    <guava.version>33.0.0-jre</guava.version>
+                </properties>
+                <licenses>
+                    <license>
+                        <name>Apache-2.0</name>
+                    </license>
+                </licenses>
+                <repositories>
+                    <repository>
+                        <id>snapshots</id>
+                        <url>https://repo.example.org/snapshots</url>
+                        <releases>
+                            <enabled>false</enabled>
+                        </releases>
+                    </repository>
+                </repositories>
+                <dependencyManagement>
+                    <dependencies>
+                        <dependency>
+                            <groupId>org.example</groupId>
+                            <artifactId>bom</artifactId>
+                            <version>${project.version}</version>
+                            <type>pom</type>
+                            <scope>import</scope>
+                        </dependency>
+                    </dependencies>
+                </dependencyManagement>
+                <dependencies>
+                    <dependency>
+                        <groupId>com.google.guava</groupId>
+                        <artifactId>guava</artifactId>
+                        <version>${guava.version}</version>
+                        <exclusions>
+                            <exclusion>
+                                <groupId>com.google.code.findbugs</groupId>
+                                <artifactId>jsr305</artifactId>
+                            </exclusion>
+                        </exclusions>
+                    </dependency>
+                    <dependency>
+                        <groupId>org.junit.jupiter</groupId>
+                        <artifactId>junit-jupiter</artifactId>
+                        <scope>test</scope>
+                        <optional>true</optional>
+                    </dependency>
+                </dependencies>
+                <build>
+                    <pluginManagement>
+                        <plugins>
+                            <plugin>
+                                <artifactId>maven-compiler-plugin</artifactId>
+                                <version>3.13.0</version>
+                                <configuration>
+                                    <release>17</release>
+                                    <compilerArgs>
+                                        <arg>-parameters</arg>
+                                    </compilerArgs>
+                                </configuration>
+                            </plugin>
+                        </plugins>
+                    </pluginManagement>
+                    <plugins>
+                        <plugin>
+                            <groupId>org.apache.maven.plugins</groupId>
+                            <artifactId>maven-surefire-plugin</artifactId>
+                            <executions>
+                                <execution>
+                                    <id>integration</id>
+                                    <phase>integration-test</phase>
+                                    <goals>
+                                        <goal>test</goal>
+                                    </goals>
+                                </execution>
+                            </executions>
+                        </plugin>
+                    </plugins>
+                </build>
+                <profiles>
+                    <profile>
+                        <id>ci</id>
+                        <activation>
+                            <property>
+                                <name>env.CI</name>
+                            </property>
+                        </activation>
+                        <properties>
+                            <skipTests>false</skipTests>
+                        </properties>
+                    </profile>
+                </profiles>
+            </project>
+            """;
+
+    @Test
+    void convertsToTheSamePomAsParsingTheFile() throws Exception {
+        Model model = new MavenXpp3Reader().read(new StringReader(POM));
+        Path pomPath = Paths.get("app/pom.xml");
+
+        Pom converted = RawPomConverter.toRawPom(model).toPom(pomPath, null);
+        Pom parsed = RawPom.parse(new ByteArrayInputStream(POM.getBytes(StandardCharsets.UTF_8)), null).toPom(pomPath, null);
+
+        assertThat(converted).isEqualTo(parsed);
+    }
+}
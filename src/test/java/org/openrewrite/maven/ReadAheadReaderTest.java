@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadAheadReaderTest {
+
+    @Test
+    void inputsServeFileContentsInOrder(@TempDir Path dir) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Path file = dir.resolve("File" + i + ".java");
+            Files.write(file, ("class File" + i + " {}").getBytes(StandardCharsets.UTF_8));
+            paths.add(file);
+        }
+
+        try (ReadAheadReader reader = new ReadAheadReader(3)) {
+            List<Parser.Input> inputs = reader.window(paths).inputs();
+
+            assertThat(inputs).extracting(Parser.Input::getPath).containsExactlyElementsOf(paths);
+            for (int i = 0; i < inputs.size(); i++) {
+                assertThat(read(inputs.get(i))).isEqualTo("class File" + i + " {}");
+            }
+        }
+    }
+
+    @Test
+    void reopeningAnInputReadsTheFileAgain(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("Test.java");
+        Files.write(file, "class Test {}".getBytes(StandardCharsets.UTF_8));
+
+        try (ReadAheadReader reader = new ReadAheadReader(2)) {
+            Parser.Input input = reader.window(List.of(file)).inputs().get(0);
+
+            assertThat(read(input)).isEqualTo("class Test {}");
+            assertThat(read(input)).isEqualTo("class Test {}");
+        }
+    }
+
+    @Test
+    void largeFilesAreReadFromDisk(@TempDir Path dir) throws IOException {
+        byte[] content = new byte[(int) ReadAheadReader.MAX_READ_AHEAD_SIZE + 1];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        Path file = dir.resolve("large.txt");
+        Files.write(file, content);
+
+        try (ReadAheadReader reader = new ReadAheadReader(1)) {
+            Parser.Input input = reader.window(List.of(file)).inputs().get(0);
+
+            try (InputStream is = input.getSource(new InMemoryExecutionContext())) {
+                assertThat(is.readAllBytes()).isEqualTo(content);
+            }
+        }
+    }
+
+    @Test
+    void closingTheWindowReleasesFilesReadAhead(@TempDir Path dir) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Path file = dir.resolve("File" + i + ".java");
+            Files.writeString(file, "class File" + i + " {}");
+            paths.add(file);
+        }
+
+        try (ReadAheadReader reader = new ReadAheadReader(3)) {
+            ReadAheadReader.Window window = reader.window(paths);
+            List<Parser.Input> inputs = window.inputs();
+            assertThat(read(inputs.get(0))).isEqualTo("class File0 {}");
+            assertThat(window.pending()).isEqualTo(3);
+
+            window.close();
+            assertThat(window.pending()).isZero();
+            // inputs opened after the window is closed are read from disk
+            assertThat(read(inputs.get(4))).isEqualTo("class File4 {}");
+            assertThat(window.pending()).isZero();
+        }
+    }
+
+    @Test
+    void inputsOpenedOnceTheReaderIsClosedAreReadFromDisk(@TempDir Path dir) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Path file = dir.resolve("File" + i + ".java");
+            Files.writeString(file, "class File" + i + " {}");
+            paths.add(file);
+        }
+
+        ReadAheadReader reader = new ReadAheadReader(3);
+        ReadAheadReader.Window window = reader.window(paths);
+        List<Parser.Input> inputs = window.inputs();
+        reader.close();
+
+        for (int i = 0; i < inputs.size(); i++) {
+            assertThat(read(inputs.get(i))).isEqualTo("class File" + i + " {}");
+        }
+        assertThat(window.pending()).isZero();
+    }
+
+    private static String read(Parser.Input input) throws IOException {
+        try (InputStream is = input.getSource(new InMemoryExecutionContext())) {
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
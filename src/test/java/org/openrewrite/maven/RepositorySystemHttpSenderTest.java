@@ -0,0 +1,42 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RepositorySystemHttpSenderTest {
+
+    @Test
+    void releasePomPath() {
+        DefaultArtifact pom = RepositorySystemHttpSender.pomArtifact("org/openrewrite/rewrite-core/8.81.0/rewrite-core-8.81.0.pom");
+        assertThat(pom).isNotNull();
+        assertThat(pom.getGroupId()).isEqualTo("org.openrewrite");
+        assertThat(pom.getArtifactId()).isEqualTo("rewrite-core");
+        assertThat(pom.getVersion()).isEqualTo("8.81.0");
+        assertThat(pom.getExtension()).isEqualTo("pom");
+    }
+
+    @Test
+    void otherPathsAreNotPoms() {
+        assertThat(RepositorySystemHttpSender.pomArtifact("org/openrewrite/rewrite-core/8.81.0/rewrite-core-8.81.0.jar")).isNull();
+        assertThat(RepositorySystemHttpSender.pomArtifact("org/openrewrite/rewrite-core/maven-metadata.xml")).isNull();
+        assertThat(RepositorySystemHttpSender.pomArtifact("org/openrewrite/rewrite-core/8.82.0-SNAPSHOT/rewrite-core-8.82.0-20260101.120000-1.pom")).isNull();
+        assertThat(RepositorySystemHttpSender.pomArtifact("rewrite-core/8.81.0/rewrite-core-8.81.0.pom")).isNull();
+    }
+}
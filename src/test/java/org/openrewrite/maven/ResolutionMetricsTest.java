@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+import org.openrewrite.ipc.http.HttpSender;
+import org.openrewrite.maven.cache.InMemoryMavenPomCache;
+import org.openrewrite.maven.cache.MavenPomCache;
+import org.openrewrite.maven.tree.GroupArtifactVersion;
+import org.openrewrite.maven.tree.ResolutionEventListener;
+import org.openrewrite.maven.tree.ResolvedGroupArtifactVersion;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResolutionMetricsTest {
+
+    @Test
+    void summarizesDownloadsPerRepositoryAndCacheLayers() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            ResolutionMetrics metrics = new ResolutionMetrics(List.of("https://repo.example.com/releases"));
+            HttpSender sender = metrics.wrap(request -> new HttpSender.Response(
+                    request.getUrl().getPath().contains("missing") ? 404 : 200,
+                    new ByteArrayInputStream(new byte[2048]), () -> {
+            }));
+            download(sender, "https://repo.example.com/releases/org/example/lib/1.0/lib-1.0.pom");
+            download(sender, "https://repo.example.com/releases/org/example/missing/1.0/missing-1.0.pom");
+            download(sender, "https://other.example.com/maven2/org/example/lib/1.0/lib-1.0.pom");
+            metrics.resolved("https://repo.example.com/releases");
+
+            MavenPomCache cache = MeteredMavenPomCache.composite(new InMemoryMavenPomCache(), new InMemoryMavenPomCache());
+            ResolvedGroupArtifactVersion gav = new ResolvedGroupArtifactVersion("https://repo.example.com/releases", "org.example", "lib", "1.0", null);
+            cache.getPom(gav);
+            cache.putPom(gav, null);
+            cache.getPom(gav);
+
+            List<String> summary = metrics.summary();
+            assertThat(summary).anySatisfy(line -> assertThat(line)
+                    .matches("\\s+https://repo\\.example\\.com/releases/\\s+2\\s+0\\s+4\\s+.*\\s1"));
+            assertThat(summary).anySatisfy(line -> assertThat(line)
+                    .matches("\\s+https://other\\.example\\.com/\\s+1\\s+0\\s+2\\s+.*\\s0"));
+            assertThat(summary).last().asString().contains("L1 2 lookup(s), 50.0% hits", "L2 1 lookup(s), 0.0% hits");
+
+            Timer downloads = registry.find("rewrite.maven.download").tag("repository", "https://repo.example.com/releases/").tag("outcome", "404").timer();
+            assertThat(downloads).isNotNull();
+            assertThat(downloads.count()).isEqualTo(1);
+            assertThat(registry.find("rewrite.maven.download.size").tag("repository", "https://other.example.com/").summary())
+                    .isNotNull()
+                    .satisfies(size -> assertThat(size.totalAmount()).isEqualTo(2048));
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
+    @Test
+    void failuresAheadOfTheLinkedParseAreNotCounted() {
+        ResolutionMetrics metrics = new ResolutionMetrics(List.of("https://repo.example.com/releases"));
+        GroupArtifactVersion gav = new GroupArtifactVersion("org.example", "missing", "1.0");
+        List<String> attempted = List.of("https://repo.example.com/releases/org/example/missing/1.0/missing-1.0.pom");
+
+        ResolutionEventListener prePass = MavenLoggingResolutionEventListener.aheadOfLinkedParse(new SystemStreamLog(), metrics);
+        prePass.downloadError(gav, attempted, null);
+        prePass.repositoryAccessFailed("https://repo.example.com/releases", new IOException("timed out"));
+        ResolutionEventListener linkedParse = new MavenLoggingResolutionEventListener(new SystemStreamLog(), metrics);
+        linkedParse.downloadError(gav, attempted, null);
+        linkedParse.repositoryAccessFailed("https://repo.example.com/releases", new IOException("timed out"));
+
+        List<String> summary = metrics.summary();
+        assertThat(summary).first().asString().contains("1 POM(s) could not be resolved");
+        assertThat(summary).anySatisfy(line -> assertThat(line)
+                .matches("\\s+https://repo\\.example\\.com/releases/\\s+0\\s+1\\s+.*"));
+    }
+
+    private static void download(HttpSender sender, String url) throws IOException {
+        try (HttpSender.Response response = sender.send(sender.get(url).build())) {
+            response.getBodyAsBytes();
+        }
+    }
+}
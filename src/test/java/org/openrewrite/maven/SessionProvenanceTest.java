@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.maven;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.jgit.api.Git;
+import org.openrewrite.marker.GitProvenance;
+import org.openrewrite.marker.ci.BuildEnvironment;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionProvenanceTest {
+
+    @Test
+    void computesGitProvenanceOncePerSessionAndPersistsItByHead(@TempDir Path repository, @TempDir Path cache) throws Exception {
+        try (Git git = Git.init().setDirectory(repository.toFile()).setInitialBranch("main").call()) {
+            Files.writeString(repository.resolve("pom.xml"), "<project/>");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("initial").setAuthor("Jane", "jane@example.com").setSign(false).call();
+
+            SessionProvenance session = new SessionProvenance(cache);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<Future<GitProvenance>> modules = new ArrayList<>();
+            try {
+                for (int i = 0; i < 8; i++) {
+                    modules.add(executor.submit(() -> session.getGitProvenance(repository, new SystemStreamLog())));
+                }
+                GitProvenance first = modules.get(0).get();
+                assertThat(first).isNotNull();
+                assertThat(first.getBranch()).isEqualTo("main");
+                for (Future<GitProvenance> module : modules) {
+                    assertThat(module.get()).isSameAs(first);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            // a later build of the same commit reads it back
+            GitProvenance persisted = new SessionProvenance(cache).getGitProvenance(repository, new SystemStreamLog());
+            assertThat(persisted).isNotNull();
+            assertThat(persisted.getBranch()).isEqualTo("main");
+            assertThat(persisted.getChange()).isEqualTo(modules.get(0).get().getChange());
+            assertThat(persisted.getCommitters()).extracting(GitProvenance.Committer::getEmail).containsExactly("jane@example.com");
+
+            // and a new commit is walked again
+            Files.writeString(repository.resolve("pom.xml"), "<project></project>");
+            git.commit().setAll(true).setMessage("second").setAuthor("Jane", "jane@example.com").setSign(false).call();
+            GitProvenance afterCommit = new SessionProvenance(cache).getGitProvenance(repository, new SystemStreamLog());
+            assertThat(afterCommit).isNotNull();
+            assertThat(afterCommit.getChange()).isNotEqualTo(persisted.getChange());
+        }
+    }
+
+    @Test
+    void doesNotReusePersistedProvenanceForAnotherBranchOfTheBuildEnvironment(@TempDir Path repository, @TempDir Path cache) throws Exception {
+        try (Git git = Git.init().setDirectory(repository.toFile()).setInitialBranch("main").call()) {
+            Files.writeString(repository.resolve("pom.xml"), "<project/>");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("initial").setAuthor("Jane", "jane@example.com").setSign(false).call();
+
+            GitProvenance feature = new SessionProvenance(cache, jenkins("origin/feature", "feature"))
+                    .getGitProvenance(repository, new SystemStreamLog());
+            assertThat(feature).isNotNull();
+            assertThat(feature.getBranch()).isEqualTo("feature");
+
+            // the same commit built for another branch
+            GitProvenance release = new SessionProvenance(cache, jenkins("origin/release", "release"))
+                    .getGitProvenance(repository, new SystemStreamLog());
+            assertThat(release).isNotNull();
+            assertThat(release.getBranch()).isEqualTo("release");
+
+            // while a rebuild for the same branch reads it back
+            GitProvenance again = new SessionProvenance(cache, jenkins("origin/feature", "feature"))
+                    .getGitProvenance(repository, new SystemStreamLog());
+            assertThat(again).isNotNull();
+            assertThat(again.getBranch()).isEqualTo("feature");
+        }
+    }
+
+    private static BuildEnvironment jenkins(String branch, String localBranch) {
+        Map<String, String> env = Map.of(
+                "BUILD_NUMBER", "1",
+                "JOB_NAME", "rewrite",
+                "BUILD_URL", "https://jenkins.example.com/job/rewrite/1",
+                "JENKINS_URL", "https://jenkins.example.com",
+                "GIT_BRANCH", branch,
+                "GIT_LOCAL_BRANCH", localBranch);
+        return BuildEnvironment.build(env::get);
+    }
+}